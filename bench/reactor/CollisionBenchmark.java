@@ -0,0 +1,125 @@
+package reactor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Microbenchmarks for the per-particle kernels of the step: the collision predicates, the
+// fuel grid lookup and neutron movement. Each invocation runs the kernel over BATCH random
+// neutrons, so the numbers are per neutron.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+
+    private static final int BATCH = 4096;
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 600;
+
+    private ReactorEngine engine;
+    private ParticleStore neutrons;
+    private ParticleStore fuels;
+    private FuelGrid grid;
+    private Particle[] neutronObjects;
+    private Particle[] fuelObjects;
+
+    @Setup
+    public void setUp() {
+        engine = new ReactorEngine(WIDTH, HEIGHT, 42);
+        engine.addStrayNeutrons(BATCH);
+        neutrons = engine.getNeutrons();
+        fuels = engine.getFuels();
+        grid = engine.getFuelGrid();
+
+        // The same particles as objects, for the Particle-based API
+        neutronObjects = new Particle[BATCH];
+        fuelObjects = new Particle[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            int j = i % fuels.size();
+            neutronObjects[i] = new Particle(neutrons.x[i], neutrons.y[i], ParticleType.NEUTRON);
+            neutronObjects[i].dx = neutrons.dx[i];
+            neutronObjects[i].dy = neutrons.dy[i];
+            fuelObjects[i] = new Particle(fuels.x[j], fuels.y[j], fuels.getType(j));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void closeCollidingObjects(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++) {
+            bh.consume(ReactorEngine.closeColliding(neutronObjects[i], fuelObjects[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void closeCollidingStore(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++) {
+            bh.consume(ReactorEngine.closeColliding(neutrons, i, fuels, i % fuels.size()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void checkCollision(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++) {
+            bh.consume(ReactorEngine.checkCollision(neutrons.x[i], neutrons.y[i], ParticleType.NEUTRON.getRadius(), 300, 200, 200, 200));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void overlapsStore(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++) {
+            bh.consume(Collisions.overlaps(neutrons, i, fuels, i % fuels.size()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void hitSide(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++) {
+            bh.consume(Collisions.hitSide(neutrons.x[i], neutrons.y[i], ParticleType.NEUTRON.getRadius(), 300, 200, 200, 200));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void gridLookup(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++) {
+            bh.consume(grid.findCollision(neutrons, i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void moveAndBounceObjects() {
+        for (int i = 0; i < BATCH; i++) {
+            neutronObjects[i].move();
+            neutronObjects[i].bounceBounds(0, WIDTH, 0, HEIGHT);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void moveAndBounceStore() {
+        for (int i = 0; i < BATCH; i++) {
+            neutrons.move(i);
+            neutrons.bounceBounds(i, 0, WIDTH, 0, HEIGHT);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package reactor;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Scalar against SIMD neutron kernels at large populations. The fork loads the Vector API
+// for both, so they run on the same JVM setup. Times are for the whole population.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class KernelBenchmark {
+
+    private static final int FUEL_COUNT = 10000;
+    private static final double SPACING = 50;
+
+    @Param({ "100000", "1000000" })
+    public int neutronCount;
+
+    @Param({ "scalar", "vector" })
+    public String kernel;
+
+    private NeutronKernels kernels;
+    private ReactorEngine engine;
+    private ParticleStore neutrons;
+    private FuelGrid grid;
+    private double[] fuelX;
+    private double[] fuelY;
+    private int side;
+
+    @Setup
+    public void setUp() {
+        kernels = kernel.equals("vector") ? NeutronKernels.vector() : NeutronKernels.scalar();
+        if (kernels == null) {
+            throw new IllegalStateException("jdk.incubator.vector is not available");
+        }
+        side = (int) ((Math.ceil(Math.sqrt(FUEL_COUNT)) + 1) * SPACING);
+        engine = new ReactorEngine(side, side, 42, FUEL_COUNT, SPACING, 0.3);
+        engine.addStrayNeutrons(neutronCount);
+        neutrons = engine.getNeutrons();
+        grid = engine.getFuelGrid();
+        fuelX = Arrays.copyOf(engine.getFuels().x, FUEL_COUNT);
+        fuelY = Arrays.copyOf(engine.getFuels().y, FUEL_COUNT);
+    }
+
+    // Moves and reflects every neutron once
+    @Benchmark
+    public ParticleStore moveAndBounce() {
+        kernels.moveAndBounce(neutrons, 0, neutrons.size(), side, side);
+        return neutrons;
+    }
+
+    // The collision lookup of every neutron through the fuel grid
+    @Benchmark
+    public void gridLookup(Blackhole bh) {
+        for (int i = 0; i < neutrons.size(); i++) {
+            bh.consume(grid.findCollision(neutrons, i, kernels));
+        }
+    }
+
+    // Squared distances from a point outside the lattice to every fuel particle, the bulk case
+    // where no candidate is close enough and the whole array is scanned
+    @Benchmark
+    public int scanAllFuel() {
+        return kernels.firstWithin(fuelX, fuelY, 0, FUEL_COUNT, -100, -100, FuelGrid.maxRadius() * FuelGrid.maxRadius());
+    }
+}
@@ -0,0 +1,76 @@
+package reactor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Throughput of one full ReactorEngine.step() at different population sizes.
+// The seeded reactor is checkpointed once, and every invocation restores it and times STEPS
+// steps, so the population stays near neutronCount instead of dying out or running away
+// over the thousands of steps in an iteration.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StepBenchmark {
+
+    private static final double SPACING = 50;
+    private static final int STEPS = 10; // Steps timed from each restore
+
+    @Param({ "100", "10000", "1000000" })
+    public int fuelCount;
+
+    // From a handful of strays (subcritical) to a saturated core (supercritical)
+    @Param({ "10", "1000", "100000" })
+    public int neutronCount;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    private File snapshot;
+    private ReactorEngine engine;
+
+    @Setup(Level.Trial)
+    public void build() throws IOException {
+        int side = (int) Math.max(800, (Math.ceil(Math.sqrt(fuelCount)) + 1) * SPACING);
+        ReactorEngine start = new ReactorEngine(side, side, 42, fuelCount, SPACING, 0.3);
+        start.addStrayNeutrons(neutronCount);
+        snapshot = File.createTempFile("step", ".ckpt");
+        start.saveCheckpoint(snapshot);
+    }
+
+    @Setup(Level.Invocation)
+    public void restore() throws IOException {
+        engine = ReactorEngine.loadCheckpoint(snapshot);
+        engine.setParallel(parallel);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() {
+        snapshot.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public ReactorEngine step() {
+        engine.run(STEPS);
+        return engine;
+    }
+}
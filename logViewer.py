@@ -1,50 +1,108 @@
+import os
+import sys
+
 import pandas as pd
 import matplotlib.pyplot as plt
-import io
+
+# Usage: python logViewer.py [log.csv] [--follow]
+#
+# Long runs are summarized first with
+#   java -cp target/nuclear-reactor-1.0-SNAPSHOT.jar reactor.LogAnalyzer log.csv [--follow]
+# which writes a few thousand lines of min, max and mean per bucket of records to
+# log.summary.csv. The viewer plots that when it is there, and the whole log otherwise.
+
+def summary_path(log_path):
+    """The summary LogAnalyzer writes for a log: log.csv summarizes to log.summary.csv"""
+    return os.path.splitext(log_path)[0] + '.summary.csv'
 
 def plot_selected_columns(data, columns_to_plot=None):
     """
     Plot selected columns from the dataframe.
-    
+
     Args:
         data: pandas DataFrame containing the log data
         columns_to_plot: list of column names to plot. If None, plots all columns
     """
     # Clean up column names by removing special characters
     data.columns = [col.replace('*', '').replace('**', '') for col in data.columns]
-    
+
     # If no columns specified, plot all columns
     if columns_to_plot is None:
         columns_to_plot = data.columns
-    
+
     # Verify that specified columns exist
     valid_columns = [col for col in columns_to_plot if col in data.columns]
     if len(valid_columns) == 0:
         print("No valid columns specified. Available columns:", list(data.columns))
         return
-    
+
     # Create the plot
     plt.figure(figsize=(12, 6))
-    
+
     # Plot each selected column
     for column in valid_columns:
         plt.plot(data.index, data[column], label=column, marker='o', markersize=4)
-    
+
+    finish_plot('Index')
+
+    # Show the plot
+    plt.show()
+
+def plot_summary(summary, columns_to_plot):
+    """
+    Plot the mean of each column per bucket, shaded between its min and max.
+
+    Args:
+        summary: pandas DataFrame read from a LogAnalyzer summary
+        columns_to_plot: list of log column names to plot
+    """
+    valid_columns = [col for col in columns_to_plot if col + '_mean' in summary.columns]
+    if len(valid_columns) == 0:
+        print("No valid columns specified. Available columns:", [col[:-5] for col in summary.columns if col.endswith('_mean')])
+        return
+
+    for column in valid_columns:
+        line, = plt.plot(summary['first'], summary[column + '_mean'], label=column)
+        plt.fill_between(summary['first'], summary[column + '_min'], summary[column + '_max'], color=line.get_color(), alpha=0.25)
+
+    finish_plot('Record')
+
+def finish_plot(x_label):
     # Customize the plot
     plt.title('Log Data Visualization', fontsize=14)
-    plt.xlabel('Index', fontsize=12)
+    plt.xlabel(x_label, fontsize=12)
     plt.ylabel('Value', fontsize=12)
     plt.grid(True, linestyle='--', alpha=0.7)
     plt.legend(bbox_to_anchor=(1.05, 1), loc='upper left')
-    
+
     # Adjust layout to prevent legend from being cut off
     plt.tight_layout()
-    
-    # Show the plot
-    plt.show()
 
-# Read the data
-df = pd.read_csv('log.csv')
+def follow_summary(path, columns_to_plot):
+    """Redraw the summary whenever LogAnalyzer --follow rewrites it, until the window is closed"""
+    plt.figure(figsize=(12, 6))
+    modified = None
+    while plt.fignum_exists(1):
+        if os.path.exists(path) and os.path.getmtime(path) != modified:
+            modified = os.path.getmtime(path)
+            plt.clf()
+            plot_summary(pd.read_csv(path), columns_to_plot)
+        plt.pause(1)
+
+log_path = next((arg for arg in sys.argv[1:] if not arg.startswith('--')), 'log.csv')
+columns = ["t", "n"]
+
+if '--follow' in sys.argv:
+    follow_summary(summary_path(log_path), columns)
+elif os.path.exists(summary_path(log_path)):
+    if os.path.exists(log_path) and os.path.getmtime(log_path) > os.path.getmtime(summary_path(log_path)):
+        print("The summary is older than the log, run LogAnalyzer again to update it")
+    plt.figure(figsize=(12, 6))
+    plot_summary(pd.read_csv(summary_path(log_path)), columns)
+    plt.show()
+else:
+    # Read the data
+    df = pd.read_csv(log_path)
 
-# Plot all columns
-plot_selected_columns(df, ["t", "n"])
\ No newline at end of file
+    # Plot all columns
+    plot_selected_columns(df, columns)
@@ -0,0 +1,223 @@
+package reactor;
+
+import java.awt.Rectangle;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Sweeps reactor parameters. Every point of the grid (one value per axis) is run with several
+// seeds, each run a separate single-threaded engine on a fixed pool with one worker per core.
+// A summary line per run is appended to one CSV file as the runs finish, so the file can be
+// watched while the sweep runs; the run column gives the order they were submitted in.
+public class BatchRunner {
+
+    // neutrons counts the real ones, simulatedNeutrons the particles standing for them under a budget
+    private static final String METRICS = "frames,criticalFrame,peakTemperature,energyOutput,neutrons,simulatedNeutrons,depleted,uranium,graphite,seconds";
+
+    private final ReactorConfig base; // Parameters that no axis changes
+    private final ArrayList<String> axisNames = new ArrayList<String>();
+    private final ArrayList<double[]> axisValues = new ArrayList<double[]>();
+    private List<Rectangle> moderators = new ArrayList<Rectangle>(); // Shared by every run, never modified
+
+    private int width = 800;
+    private int height = 600;
+    private long frames = 10000; // Frames simulated per run
+    private int seedsPerPoint = 1;
+    private long firstSeed = 1; // Every point uses the seeds firstSeed, firstSeed + 1, ...
+    private int criticalNeutrons = 100; // Neutron count that counts as the reactor going critical
+    private boolean eventDriven;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public BatchRunner(ReactorConfig base) {
+        this.base = new ReactorConfig(base);
+    }
+
+    // Adds a swept parameter, named as in ReactorConfig.PARAMETERS
+    public void addAxis(String name, double... values) {
+        base.get(name); // Rejects unknown names
+        if (values.length == 0) {
+            throw new IllegalArgumentException("No values for " + name);
+        }
+        axisNames.add(name);
+        axisValues.add(values.clone());
+    }
+
+    // Parses "a,b,c" as a list of values and "start:stop:step" as an inclusive range
+    public static double[] parseValues(String spec) {
+        String[] range = spec.split(":");
+        if (range.length == 3) {
+            // In decimal, so 0.1:0.5:0.1 gives 0.3 and not 0.30000000000000004
+            BigDecimal start = new BigDecimal(range[0].trim());
+            BigDecimal stop = new BigDecimal(range[1].trim());
+            BigDecimal step = new BigDecimal(range[2].trim());
+            if (step.signum() <= 0) {
+                throw new IllegalArgumentException("Step must be positive: " + spec);
+            }
+            ArrayList<Double> values = new ArrayList<Double>();
+            for (BigDecimal v = start; v.compareTo(stop) <= 0; v = v.add(step)) {
+                values.add(v.doubleValue());
+            }
+            double[] result = new double[values.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = values.get(i);
+            }
+            return result;
+        }
+        String[] list = spec.split(",");
+        double[] values = new double[list.length];
+        for (int i = 0; i < list.length; i++) {
+            values[i] = Double.parseDouble(list[i].trim());
+        }
+        return values;
+    }
+
+    public void setWorld(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void setModerators(List<Rectangle> moderators) { this.moderators = new ArrayList<Rectangle>(moderators); }
+    public void setFrames(long frames) { this.frames = frames; }
+    public void setSeeds(long firstSeed, int seedsPerPoint) { this.firstSeed = firstSeed; this.seedsPerPoint = seedsPerPoint; }
+    public void setCriticalNeutrons(int criticalNeutrons) { this.criticalNeutrons = criticalNeutrons; }
+    public void setEventDrivenDegradation(boolean eventDriven) { this.eventDriven = eventDriven; }
+    public void setThreads(int threads) { this.threads = Math.max(1, threads); }
+
+    // Number of grid points, each run once per seed
+    public int getPointCount() {
+        int points = 1;
+        for (double[] values : axisValues) {
+            points *= values.length;
+        }
+        return points;
+    }
+
+    // The config of a grid point. The first axis varies slowest.
+    private ReactorConfig configAt(int point) {
+        ReactorConfig config = new ReactorConfig(base);
+        for (int a = axisNames.size() - 1; a >= 0; a--) {
+            double[] values = axisValues.get(a);
+            config.set(axisNames.get(a), values[point % values.length]);
+            point /= values.length;
+        }
+        return config;
+    }
+
+    // Runs the whole grid and writes one line per run to resultsFile
+    public void run(File resultsFile) throws IOException, InterruptedException {
+        int runs = getPointCount() * seedsPerPoint;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ExecutorCompletionService<String> finished = new ExecutorCompletionService<String>(pool);
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(resultsFile))) {
+            StringBuilder header = new StringBuilder("run,seed");
+            for (String name : axisNames) {
+                header.append(',').append(name);
+            }
+            out.write(header.append(',').append(METRICS).append('\n').toString());
+
+            for (int run = 0; run < runs; run++) {
+                final int id = run;
+                final ReactorConfig config = configAt(run / seedsPerPoint);
+                final long seed = firstSeed + run % seedsPerPoint;
+                finished.submit(() -> runOne(id, config, seed));
+            }
+
+            // Write the lines in the order the runs finish
+            for (int done = 0; done < runs; done++) {
+                out.write(finished.take().get());
+                out.flush();
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("A reactor run failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Steps one reactor and summarizes it as a results line
+    private String runOne(int run, ReactorConfig config, long seed) {
+        long start = System.nanoTime();
+        ReactorEngine engine = new ReactorEngine(width, height, seed, config);
+        engine.setModerators(moderators);
+        engine.setEventDrivenDegradation(eventDriven);
+
+        long criticalFrame = -1; // First frame with at least criticalNeutrons neutrons
+        double peakTemperature = engine.getTemperature();
+        for (long f = 0; f < frames; f++) {
+            engine.step();
+            peakTemperature = Math.max(peakTemperature, engine.getTemperature());
+            if (criticalFrame < 0 && engine.getNeutronPopulation() >= criticalNeutrons) {
+                criticalFrame = engine.getFrame();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        StringBuilder line = new StringBuilder();
+        line.append(run).append(',').append(seed);
+        for (String name : axisNames) {
+            line.append(',').append(config.get(name));
+        }
+        line.append(',').append(frames)
+                .append(',').append(criticalFrame)
+                .append(',').append(String.format(Locale.ROOT, "%.3f", peakTemperature))
+                .append(',').append(String.format(Locale.ROOT, "%.3f", engine.getEnergyOutput()))
+                .append(',').append(Math.round(engine.getNeutronPopulation()))
+                .append(',').append(engine.getNeutrons().size())
+                .append(',').append(engine.countFuel(ParticleType.DEPLETED))
+                .append(',').append(engine.countFuel(ParticleType.URANIUM))
+                .append(',').append(engine.countFuel(ParticleType.GRAPHITE))
+                .append(',').append(String.format(Locale.ROOT, "%.3f", seconds))
+                .append('\n');
+        return line.toString();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // Usage: java reactor.BatchRunner --sweep <parameter>=<a,b,c | start:stop:step> ... [--frames <n>] [--seeds <n>] [--seed <first>]
+        //                                 [--threads <n>] [--critical-neutrons <n>] [--event-degradation] [--moderators <layout>] [--out <file>]
+        BatchRunner runner = new BatchRunner(new ReactorConfig());
+        File out = new File("sweep.csv");
+        long firstSeed = 1;
+        int seeds = 1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--sweep") && i + 1 < args.length) {
+                String[] axis = args[++i].split("=", 2);
+                if (axis.length != 2) {
+                    throw new IllegalArgumentException("Expected <parameter>=<values>: " + args[i]);
+                }
+                runner.addAxis(axis[0], parseValues(axis[1]));
+            } else if (args[i].equals("--frames") && i + 1 < args.length) {
+                runner.setFrames(Long.parseLong(args[++i]));
+            } else if (args[i].equals("--seeds") && i + 1 < args.length) {
+                seeds = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                firstSeed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                runner.setThreads(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--critical-neutrons") && i + 1 < args.length) {
+                runner.setCriticalNeutrons(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--event-degradation")) {
+                runner.setEventDrivenDegradation(true);
+            } else if (args[i].equals("--moderators") && i + 1 < args.length) {
+                runner.setModerators(ModeratorTree.readLayout(new File(args[++i])));
+            } else if (args[i].equals("--out") && i + 1 < args.length) {
+                out = new File(args[++i]);
+            }
+        }
+        runner.setSeeds(firstSeed, seeds);
+
+        long start = System.nanoTime();
+        runner.run(out);
+        int runs = runner.getPointCount() * seeds;
+        System.out.println(String.format("Ran %d reactors on %d threads in %.3fs, results in %s",
+                runs, runner.threads, (System.nanoTime() - start) / 1e9, out));
+    }
+}
@@ -0,0 +1,229 @@
+package reactor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+// A reactor checkpoint file: a header followed by scalars and packed little-endian primitive
+// arrays, one array per particle field. Writing streams through a direct buffer, and reading
+// maps the whole file, so a restore is a handful of bulk copies out of the page cache.
+// ReactorEngine.saveCheckpoint and ReactorEngine.loadCheckpoint decide what goes in it.
+public class Checkpoint implements Closeable {
+
+    public static final int MAGIC = 0x52434B50; // "RCKP"
+    public static final int VERSION = 8; // 2 added the reactor config, 3 the moderator settings, 4 the lineage, 5 the neutron weights, 6 weighted lineage counts, 7 the neutron spreads, 8 leaner lineage events
+    private static final int BUFFER_SIZE = 1 << 20; // Bytes buffered between writes
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final boolean writing;
+
+    private Checkpoint(File file, FileChannel channel, ByteBuffer buffer, boolean writing) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.writing = writing;
+    }
+
+    // Starts a new checkpoint, replacing the file
+    public static Checkpoint create(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        Checkpoint out = new Checkpoint(file, channel, ByteBuffer.allocateDirect(BUFFER_SIZE), true);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        return out;
+    }
+
+    // Maps an existing checkpoint for reading
+    public static Checkpoint open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Checkpoint is too large to map: " + file);
+            }
+            Checkpoint in = new Checkpoint(file, channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), false);
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a reactor checkpoint: " + file);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version + ": " + file);
+            }
+            return in;
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /* WRITING */
+
+    public void putInt(int value) throws IOException {
+        reserve(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    public void putLong(long value) throws IOException {
+        reserve(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    public void putDouble(double value) throws IOException {
+        reserve(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    public void putBoolean(boolean value) throws IOException {
+        reserve(1);
+        buffer.put((byte) (value ? 1 : 0));
+    }
+
+    // Writes values[0 .. n), in as many buffer loads as it takes
+    public void putDoubles(double[] values, int n) throws IOException {
+        for (int off = 0; off < n;) {
+            int len = Math.min(n - off, buffer.remaining() / Double.BYTES);
+            if (len == 0) {
+                flush();
+                continue;
+            }
+            buffer.asDoubleBuffer().put(values, off, len);
+            buffer.position(buffer.position() + len * Double.BYTES);
+            off += len;
+        }
+    }
+
+    public void putInts(int[] values, int n) throws IOException {
+        for (int off = 0; off < n;) {
+            int len = Math.min(n - off, buffer.remaining() / Integer.BYTES);
+            if (len == 0) {
+                flush();
+                continue;
+            }
+            buffer.asIntBuffer().put(values, off, len);
+            buffer.position(buffer.position() + len * Integer.BYTES);
+            off += len;
+        }
+    }
+
+    public void putLongs(long[] values, int n) throws IOException {
+        for (int off = 0; off < n;) {
+            int len = Math.min(n - off, buffer.remaining() / Long.BYTES);
+            if (len == 0) {
+                flush();
+                continue;
+            }
+            buffer.asLongBuffer().put(values, off, len);
+            buffer.position(buffer.position() + len * Long.BYTES);
+            off += len;
+        }
+    }
+
+    public void putBytes(byte[] values, int n) throws IOException {
+        for (int off = 0; off < n;) {
+            int len = Math.min(n - off, buffer.remaining());
+            if (len == 0) {
+                flush();
+                continue;
+            }
+            buffer.put(values, off, len);
+            off += len;
+        }
+    }
+
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /* READING */
+
+    public int getInt() throws IOException {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    public long getLong() throws IOException {
+        require(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    public double getDouble() throws IOException {
+        require(Double.BYTES);
+        return buffer.getDouble();
+    }
+
+    public boolean getBoolean() throws IOException {
+        require(1);
+        return buffer.get() != 0;
+    }
+
+    // Reads n values into values[0 .. n)
+    public void getDoubles(double[] values, int n) throws IOException {
+        require((long) n * Double.BYTES);
+        buffer.asDoubleBuffer().get(values, 0, n);
+        buffer.position(buffer.position() + n * Double.BYTES);
+    }
+
+    public void getInts(int[] values, int n) throws IOException {
+        require((long) n * Integer.BYTES);
+        buffer.asIntBuffer().get(values, 0, n);
+        buffer.position(buffer.position() + n * Integer.BYTES);
+    }
+
+    public void getLongs(long[] values, int n) throws IOException {
+        require((long) n * Long.BYTES);
+        buffer.asLongBuffer().get(values, 0, n);
+        buffer.position(buffer.position() + n * Long.BYTES);
+    }
+
+    public void getBytes(byte[] values, int n) throws IOException {
+        require(n);
+        buffer.get(values, 0, n);
+    }
+
+    // A count read from the file, checked before anything is allocated for it
+    public int getCount() throws IOException {
+        int n = getInt();
+        if (n < 0 || n > buffer.remaining()) {
+            throw new IOException("Corrupt checkpoint, bad count " + n + ": " + file);
+        }
+        return n;
+    }
+
+    private void require(long bytes) throws IOException {
+        if (bytes < 0 || buffer.remaining() < bytes) {
+            throw new IOException("Truncated checkpoint: " + file);
+        }
+    }
+
+    // Finishes writing, or releases the file after reading
+    @Override
+    public void close() throws IOException {
+        try {
+            if (writing) {
+                flush();
+                channel.force(false);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
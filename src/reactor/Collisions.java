@@ -0,0 +1,82 @@
+package reactor;
+
+// Allocation-free collision tests for the inner loops. Particle pairs are compared by squared
+// distance against a table of squared radii per pair of types, after the cheap cooldown check,
+// and a circle against a rectangle reports the side it hit as a bitmask instead of a string.
+public final class Collisions {
+
+    // Sides of a rectangle, as returned by hitSide()
+    public static final int NONE = 0;
+    public static final int LEFT = 1;
+    public static final int RIGHT = 2;
+    public static final int TOP = 4;
+    public static final int BOTTOM = 8;
+    public static final int HORIZONTAL = LEFT | RIGHT; // Sides that reverse dx
+    public static final int VERTICAL = TOP | BOTTOM; // Sides that reverse dy
+
+    private static final ParticleType[] TYPES = ParticleType.values();
+    private static final double[] RADIUS_SQUARED = new double[TYPES.length * TYPES.length]; // By a * TYPES.length + b
+
+    static {
+        for (ParticleType a : TYPES) {
+            for (ParticleType b : TYPES) {
+                double radius = Math.max(a.getRadius(), b.getRadius());
+                RADIUS_SQUARED[a.ordinal() * TYPES.length + b.ordinal()] = radius * radius;
+            }
+        }
+    }
+
+    private Collisions() {
+    }
+
+    // The squared distance under which two particles of these types collide
+    public static double radiusSquared(ParticleType a, ParticleType b) {
+        return RADIUS_SQUARED[a.ordinal() * TYPES.length + b.ordinal()];
+    }
+
+    // Whether two particles collide: neither is cooling down, and they are closer than the
+    // larger of their radii
+    public static boolean overlaps(ParticleStore a, int i, ParticleStore b, int j) {
+        if (a.getFramesSinceChange(i) < Particle.FRAME_COOLDOWN || b.getFramesSinceChange(j) < Particle.FRAME_COOLDOWN) {
+            return false;
+        }
+        double dx = a.x[i] - b.x[j];
+        double dy = a.y[i] - b.y[j];
+        return dx * dx + dy * dy < RADIUS_SQUARED[a.type[i] * TYPES.length + b.type[j]];
+    }
+
+    public static boolean overlaps(Particle a, Particle b) {
+        if (a.framesSinceChange < Particle.FRAME_COOLDOWN || b.framesSinceChange < Particle.FRAME_COOLDOWN) {
+            return false;
+        }
+        double dx = a.x - b.x;
+        double dy = a.y - b.y;
+        return dx * dx + dy * dy < radiusSquared(a.type, b.type);
+    }
+
+    // The side of the rectangle a circle touches: the one facing the circle's center along the
+    // axis it is further out on, or NONE when they do not touch
+    public static int hitSide(double circleX, double circleY, double radius, double rectX, double rectY, double rectWidth, double rectHeight) {
+        double distX = circleX - Math.max(rectX, Math.min(circleX, rectX + rectWidth));
+        double distY = circleY - Math.max(rectY, Math.min(circleY, rectY + rectHeight));
+        if (distX * distX + distY * distY > radius * radius) {
+            return NONE;
+        }
+        if (Math.abs(distX) > Math.abs(distY)) {
+            return distX < 0 ? LEFT : RIGHT;
+        } else {
+            return distY < 0 ? TOP : BOTTOM;
+        }
+    }
+
+    // The name checkCollision() used for a side
+    public static String describe(int side) {
+        switch (side) {
+            case LEFT: return "Left";
+            case RIGHT: return "Right";
+            case TOP: return "Top";
+            case BOTTOM: return "Bottom";
+            default: return "No collision";
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package reactor;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// A min-heap of (frame, index) events packed into longs, so scheduling allocates nothing once
+// the heap has grown. Events due on the same frame come out in index order.
+public class FrameEventQueue {
+
+    private long[] heap = new long[64];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(long frame, int index) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        long event = (frame << 32) | (index & 0xFFFFFFFFL);
+
+        // Sift up
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= event) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = event;
+    }
+
+    // Whether the earliest event is due on or before the frame
+    public boolean hasDue(long frame) {
+        return size > 0 && (heap[0] >> 32) <= frame;
+    }
+
+    // Removes the earliest event and returns its index
+    public int poll() {
+        int index = (int) heap[0];
+        long last = heap[--size];
+
+        // Sift down
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return index;
+    }
+
+    // Writes the heap as it is laid out, so a restored queue polls in the same order
+    public void write(Checkpoint out) throws IOException {
+        out.putInt(size);
+        out.putLongs(heap, size);
+    }
+
+    public void read(Checkpoint in) throws IOException {
+        int n = in.getCount();
+        if (heap.length < n) {
+            heap = new long[n];
+        }
+        in.getLongs(heap, n);
+        size = n;
+    }
+}
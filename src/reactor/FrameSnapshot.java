@@ -0,0 +1,81 @@
+package reactor;
+
+import java.util.Arrays;
+
+// A copy of what the display needs from one engine frame: neutron positions, where each one
+// was emitted, and the stats. Filled on the engine thread and then only read by the painter,
+// so painting never looks at the live engine state.
+public class FrameSnapshot {
+
+    public long frame;
+    public double temperature;
+    public double energyOutput;
+    public int fuelCount;
+    public int depletedCount;
+    public int uraniumCount;
+    public int graphiteCount;
+    public double neutronMean;
+    public double neutronDeviation;
+    public double powerMean;
+    public double powerDeviation;
+    public double multiplicationFactor; // Children per ended neutron, over the whole run
+    public double meanChainLength; // Generations per chain, from LineageLog
+    public int chunkCount; // Fuel chunks, from FuelGrid
+    public int activeChunkCount; // Chunks with depleted fuel or neutrons
+
+    // Neutrons
+    public int neutronCount;
+    public double neutronPopulation; // Neutrons the simulated ones stand for
+    public double[] x = new double[64];
+    public double[] y = new double[64];
+    public boolean[] hasOrigin = new boolean[64]; // Whether the neutron came from a fission still in the lineage
+    public double[] originX = new double[64]; // Where that fission happened
+    public double[] originY = new double[64];
+    public int[] age = new int[64]; // Frames since that fission
+
+    // Copies the engine's current state. Only grows its arrays, so a steady run allocates nothing.
+    public void capture(ReactorEngine engine) {
+        ParticleStore neutrons = engine.getNeutrons();
+        ParticleStore fuels = engine.getFuels();
+
+        frame = engine.getFrame();
+        temperature = engine.getTemperature();
+        energyOutput = engine.getEnergyOutput();
+        fuelCount = fuels.size();
+        depletedCount = fuels.getCount(ParticleType.DEPLETED);
+        uraniumCount = fuels.getCount(ParticleType.URANIUM);
+        graphiteCount = fuels.getCount(ParticleType.GRAPHITE);
+        neutronMean = engine.getNeutronStats().getMean();
+        neutronDeviation = engine.getNeutronStats().getStandardDeviation();
+        powerMean = engine.getPowerStats().getMean();
+        powerDeviation = engine.getPowerStats().getStandardDeviation();
+        LineageLog lineage = engine.getLineage();
+        multiplicationFactor = lineage.getMultiplicationFactor();
+        meanChainLength = lineage.getMeanChainLength();
+        chunkCount = engine.getFuelGrid().getChunkCount();
+        activeChunkCount = engine.countActiveChunks();
+
+        neutronCount = neutrons.size();
+        neutronPopulation = engine.getNeutronPopulation();
+        if (x.length < neutronCount) {
+            int capacity = Math.max(neutronCount, x.length * 2);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            hasOrigin = Arrays.copyOf(hasOrigin, capacity);
+            originX = Arrays.copyOf(originX, capacity);
+            originY = Arrays.copyOf(originY, capacity);
+            age = Arrays.copyOf(age, capacity);
+        }
+        System.arraycopy(neutrons.x, 0, x, 0, neutronCount);
+        System.arraycopy(neutrons.y, 0, y, 0, neutronCount);
+        for (int i = 0; i < neutronCount; i++) {
+            int event = neutrons.parentEvent[i];
+            hasOrigin[i] = lineage.isLive(event, frame);
+            if (hasOrigin[i]) {
+                originX[i] = lineage.getX(event);
+                originY[i] = lineage.getY(event);
+                age[i] = (int) (frame - lineage.getFrame(event));
+            }
+        }
+    }
+}
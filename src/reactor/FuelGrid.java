@@ -0,0 +1,252 @@
+package reactor;
+
+// Uniform grid over the fuel particles, used to find collision candidates for a neutron
+// without scanning every fuel. Fuel never moves, so the grid is built once; the type of
+// each fuel is read when queried, so setType() needs no bookkeeping here.
+//
+// The cells are grouped into square chunks of CHUNK_CELLS by CHUNK_CELLS cells and numbered
+// chunk by chunk, so the fuel of a chunk is one contiguous run of entries. When the store is
+// already in that order (the engine lays its lattice out that way, one site per cell) the
+// entries are the fuel slots themselves and the grid costs one int per cell. Each chunk counts
+// its depleted fuel, the only fuel that changes without a neutron hitting it: a chunk with none
+// is dormant, and the degradation pass skips it.
+public class FuelGrid {
+
+    public static final int CHUNK_CELLS = 32; // Cells on a side of a chunk
+    private static final int CELLS_PER_CHUNK = CHUNK_CELLS * CHUNK_CELLS;
+
+    private final ParticleStore fuels;
+    private final double cellSize;
+    private final double minX; // Corner of the first cell
+    private final double minY;
+    private final int cols;
+    private final int rows;
+    private final int chunkCols;
+    private final int chunkRows;
+
+    // Fuel indices bucketed by cell: cell c holds entries[cellStart[c] .. cellStart[c + 1])
+    private final int[] cellStart;
+    private final int[] entries; // Null when entry k is fuel k
+    private final double[] entryX; // Position of each entry, so a cell's candidates are contiguous; null along with entries
+    private final double[] entryY;
+    private final double reach; // No collision reaches further than this
+    private final double candidateRadiusSquared;
+
+    // Chunks
+    private final int[] depleted; // Depleted fuel in each chunk
+    private final boolean[] active; // Scratch for countActiveChunks()
+
+    public FuelGrid(ParticleStore fuels, double cellSize) {
+        this.fuels = fuels;
+        this.cellSize = cellSize;
+
+        // Find the bounds of the fuel
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < fuels.size(); i++) {
+            minX = Math.min(minX, fuels.x[i]);
+            minY = Math.min(minY, fuels.y[i]);
+            maxX = Math.max(maxX, fuels.x[i]);
+            maxY = Math.max(maxY, fuels.y[i]);
+        }
+        if (fuels.size() == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+
+        // The first fuel sits in the middle of its cell, so a lattice with this spacing has one
+        // site in the middle of every cell
+        this.minX = minX - cellSize / 2;
+        this.minY = minY - cellSize / 2;
+        this.cols = (int) ((maxX - this.minX) / cellSize) + 1;
+        this.rows = (int) ((maxY - this.minY) / cellSize) + 1;
+        this.chunkCols = (cols + CHUNK_CELLS - 1) / CHUNK_CELLS;
+        this.chunkRows = (rows + CHUNK_CELLS - 1) / CHUNK_CELLS;
+        int cellCount = chunkCols * chunkRows * CELLS_PER_CHUNK;
+
+        // Counting sort the fuel into cells, keeping index order inside each cell. If the fuel
+        // is already in cell order the sort would change nothing, and the store is used as is.
+        cellStart = new int[cellCount + 1];
+        boolean inOrder = true;
+        int previous = 0;
+        for (int i = 0; i < fuels.size(); i++) {
+            int cell = cellOf(fuels.x[i], fuels.y[i]);
+            cellStart[cell + 1]++;
+            inOrder &= cell >= previous;
+            previous = cell;
+        }
+        for (int c = 0; c < cellCount; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        if (inOrder) {
+            entries = null;
+            entryX = null;
+            entryY = null;
+        } else {
+            entries = new int[fuels.size()];
+            int[] next = cellStart.clone();
+            for (int i = 0; i < fuels.size(); i++) {
+                entries[next[cellOf(fuels.x[i], fuels.y[i])]++] = i;
+            }
+            entryX = new double[entries.length];
+            entryY = new double[entries.length];
+            for (int k = 0; k < entries.length; k++) {
+                entryX[k] = fuels.x[entries[k]];
+                entryY[k] = fuels.y[entries[k]];
+            }
+        }
+        reach = maxRadius();
+        candidateRadiusSquared = reach * reach;
+
+        // Count the depleted fuel of every chunk
+        depleted = new int[chunkCols * chunkRows];
+        active = new boolean[depleted.length];
+        for (int i = 0; i < fuels.size(); i++) {
+            if (fuels.getType(i) == ParticleType.DEPLETED) {
+                depleted[chunkOf(i)]++;
+            }
+        }
+    }
+
+    // The largest radius of any particle type, which bounds every collision distance
+    public static double maxRadius() {
+        double max = 0;
+        for (ParticleType type : ParticleType.values()) {
+            max = Math.max(max, type.getRadius());
+        }
+        return max;
+    }
+
+    private int cellOf(double x, double y) {
+        return cellAt((int) ((x - minX) / cellSize), (int) ((y - minY) / cellSize));
+    }
+
+    // Cells are numbered chunk by chunk, and row by row inside a chunk
+    private int cellAt(int col, int row) {
+        int chunk = (row / CHUNK_CELLS) * chunkCols + col / CHUNK_CELLS;
+        return chunk * CELLS_PER_CHUNK + (row % CHUNK_CELLS) * CHUNK_CELLS + col % CHUNK_CELLS;
+    }
+
+    private int chunkOf(int i) {
+        return cellOf(fuels.x[i], fuels.y[i]) / CELLS_PER_CHUNK;
+    }
+
+    // Returns the lowest index of a uranium or graphite fuel colliding with the neutron, or -1.
+    // This is the same fuel a linear scan over the fuel list would stop at.
+    public int findCollision(ParticleStore neutrons, int n) {
+        return findCollision(neutrons, n, NeutronKernels.scalar());
+    }
+
+    // Same as findCollision(ParticleStore, int), with the distance screening done by the kernels
+    public int findCollision(ParticleStore neutrons, int n, NeutronKernels kernels) {
+        if (neutrons.getFramesSinceChange(n) < Particle.FRAME_COOLDOWN) {
+            return -1;
+        }
+        return findCollision(neutrons.x[n], neutrons.y[n], kernels);
+    }
+
+    // Same as findCollision(ParticleStore, int), for a neutron at (x, y) that is not cooling down
+    public int findCollision(double x, double y, NeutronKernels kernels) {
+        int colLo = Math.max(0, (int) Math.floor((x - reach - minX) / cellSize));
+        int colHi = Math.min(cols - 1, (int) Math.floor((x + reach - minX) / cellSize));
+        int rowLo = Math.max(0, (int) Math.floor((y - reach - minY) / cellSize));
+        int rowHi = Math.min(rows - 1, (int) Math.floor((y + reach - minY) / cellSize));
+        double[] xs = entries == null ? fuels.x : entryX;
+        double[] ys = entries == null ? fuels.y : entryY;
+
+        int found = -1;
+        for (int row = rowLo; row <= rowHi; row++) {
+            for (int col = colLo; col <= colHi; col++) {
+                int cell = cellAt(col, row);
+                int end = cellStart[cell + 1];
+                for (int k = cellStart[cell]; k < end; k++) {
+
+                    // Skip to the next fuel that is close enough to collide with anything
+                    k = kernels.firstWithin(xs, ys, k, end, x, y, candidateRadiusSquared);
+                    if (k == -1) {
+                        break;
+                    }
+                    int index = entries == null ? k : entries[k];
+
+                    // Entries are sorted, so nothing further in this cell can beat the current hit
+                    if (found != -1 && index > found) {
+                        break;
+                    }
+
+                    ParticleType type = fuels.getType(index);
+                    double dx = x - fuels.x[index];
+                    double dy = y - fuels.y[index];
+                    if ((type == ParticleType.URANIUM || type == ParticleType.GRAPHITE)
+                            && fuels.getFramesSinceChange(index) >= Particle.FRAME_COOLDOWN
+                            && dx * dx + dy * dy < Collisions.radiusSquared(ParticleType.NEUTRON, type)) {
+                        found = index;
+                        break;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    // Keeps the depleted counts up to date; the engine calls this before fuel i changes type
+    public void typeChanged(int i, ParticleType from, ParticleType to) {
+        if (from == ParticleType.DEPLETED) {
+            depleted[chunkOf(i)]--;
+        }
+        if (to == ParticleType.DEPLETED) {
+            depleted[chunkOf(i)]++;
+        }
+    }
+
+    // Whether every chunk's entries are the fuel slots themselves, in increasing order, so
+    // visiting the chunks in order visits the fuel in index order
+    public boolean isInSlotOrder() {
+        return entries == null;
+    }
+
+    // Chunk c covers the chunk column c % getChunkColumns() and row c / getChunkColumns(), and
+    // holds the entries getChunkStart(c) to getChunkEnd(c) - 1
+    public int getChunkCount() { return depleted.length; }
+    public int getChunkColumns() { return chunkCols; }
+    public int getChunkRows() { return chunkRows; }
+    public int getChunkStart(int chunk) { return cellStart[chunk * CELLS_PER_CHUNK]; }
+    public int getChunkEnd(int chunk) { return cellStart[(chunk + 1) * CELLS_PER_CHUNK]; }
+    public int getDepletedCount(int chunk) { return depleted[chunk]; }
+
+    // The fuel slot of entry k
+    public int getFuel(int k) {
+        return entries == null ? k : entries[k];
+    }
+
+    // The chunk column or row holding a point of the world, clamped to the grid
+    public int chunkColumn(double x) {
+        return Math.max(0, Math.min(cols - 1, (int) Math.floor((x - minX) / cellSize))) / CHUNK_CELLS;
+    }
+
+    public int chunkRow(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - minY) / cellSize))) / CHUNK_CELLS;
+    }
+
+    // Number of chunks with depleted fuel or a neutron in them. The rest are dormant.
+    public int countActiveChunks(ParticleStore neutrons) {
+        int count = 0;
+        for (int c = 0; c < depleted.length; c++) {
+            active[c] = depleted[c] > 0;
+            if (active[c]) {
+                count++;
+            }
+        }
+        for (int i = 0; i < neutrons.size(); i++) {
+            int col = (int) Math.floor((neutrons.x[i] - minX) / cellSize);
+            int row = (int) Math.floor((neutrons.y[i] - minY) / cellSize);
+            if (col < 0 || col >= cols || row < 0 || row >= rows) {
+                continue;
+            }
+            int c = (row / CHUNK_CELLS) * chunkCols + col / CHUNK_CELLS;
+            if (!active[c]) {
+                active[c] = true;
+                count++;
+            }
+        }
+        return count;
+    }
+}
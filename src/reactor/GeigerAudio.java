@@ -0,0 +1,142 @@
+package reactor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+// Plays the geiger click. The sound is decoded once into memory, and a dedicated thread mixes
+// the clicks that are playing into a single SourceDataLine in small blocks. click() only bumps a
+// counter, so callers never block or allocate. Clicks requested closer together than
+// MIN_CLICK_GAP_MILLIS are merged into one, and at most MAX_VOICES play at once.
+// Without a sound device every click is silently ignored.
+public class GeigerAudio implements AutoCloseable {
+
+    private static final int BLOCK_FRAMES = 256; // Frames mixed per write, about 5 ms at 48 kHz
+    private static final int LINE_BLOCKS = 4; // Size of the line's buffer in blocks, which bounds the latency
+    private static final int MAX_VOICES = 8; // Clicks that can overlap
+    private static final int MIN_CLICK_GAP_MILLIS = 25;
+
+    private final AtomicInteger pending = new AtomicInteger(); // Clicks requested since the mixer last looked
+    private short[] clip; // Interleaved 16 bit samples
+    private AudioFormat format;
+    private SourceDataLine line;
+    private Thread thread;
+    private volatile boolean closed;
+
+    // Mixer state, only touched by the audio thread
+    private final int[] voices = new int[MAX_VOICES]; // Next sample of the clip for each voice, or -1 when idle
+    private int[] mix;
+    private byte[] out;
+    private int minClickGap; // In frames
+    private int framesSinceClick = Integer.MAX_VALUE;
+
+    public GeigerAudio(File soundFile) {
+        Arrays.fill(voices, -1);
+        try {
+            decode(soundFile);
+            int frameSize = format.getFrameSize();
+            line = AudioSystem.getSourceDataLine(format);
+            line.open(format, BLOCK_FRAMES * LINE_BLOCKS * frameSize);
+        } catch (IOException | UnsupportedAudioFileException | LineUnavailableException | IllegalArgumentException ex) {
+            System.err.println("Geiger audio disabled: " + ex.getMessage());
+            line = null;
+            return;
+        }
+        mix = new int[BLOCK_FRAMES * format.getChannels()];
+        out = new byte[mix.length * 2];
+        minClickGap = (int) (format.getSampleRate() * MIN_CLICK_GAP_MILLIS / 1000);
+
+        line.start();
+        thread = new Thread(this::mixLoop, "geiger-audio");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Reads the whole sound as signed 16 bit little-endian PCM, converting it if needed
+    private void decode(File soundFile) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(soundFile)) {
+            AudioFormat original = source.getFormat();
+            format = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, original.getSampleRate(), 16,
+                    original.getChannels(), original.getChannels() * 2, original.getSampleRate(), false);
+            try (AudioInputStream pcm = AudioSystem.getAudioInputStream(format, source)) {
+                byte[] bytes = pcm.readAllBytes();
+                clip = new short[bytes.length / 2];
+                for (int i = 0; i < clip.length; i++) {
+                    clip[i] = (short) ((bytes[2 * i] & 0xFF) | (bytes[2 * i + 1] << 8));
+                }
+            }
+        }
+    }
+
+    // Asks for a click. Safe to call from any thread.
+    public void click() {
+        pending.incrementAndGet();
+    }
+
+    public boolean isEnabled() {
+        return line != null;
+    }
+
+    private void mixLoop() {
+        while (!closed) {
+            mixBlock();
+            line.write(out, 0, out.length); // Blocks while the line is full, which paces the loop
+        }
+        line.stop();
+        line.close();
+    }
+
+    // Mixes the next BLOCK_FRAMES frames into out
+    private void mixBlock() {
+
+        // Start one voice for all the clicks requested since the last block, if the last click
+        // is far enough behind
+        if (pending.getAndSet(0) > 0 && framesSinceClick >= minClickGap) {
+            for (int v = 0; v < MAX_VOICES; v++) {
+                if (voices[v] == -1) {
+                    voices[v] = 0;
+                    framesSinceClick = 0;
+                    break;
+                }
+            }
+        }
+        if (framesSinceClick < Integer.MAX_VALUE - BLOCK_FRAMES) {
+            framesSinceClick += BLOCK_FRAMES;
+        }
+
+        // Sum the playing voices
+        Arrays.fill(mix, 0);
+        for (int v = 0; v < MAX_VOICES; v++) {
+            int position = voices[v];
+            if (position == -1) {
+                continue;
+            }
+            int n = Math.min(mix.length, clip.length - position);
+            for (int i = 0; i < n; i++) {
+                mix[i] += clip[position + i];
+            }
+            voices[v] = position + n < clip.length ? position + n : -1;
+        }
+
+        // Clip to 16 bits, little-endian
+        for (int i = 0; i < mix.length; i++) {
+            int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+            out[2 * i] = (byte) sample;
+            out[2 * i + 1] = (byte) (sample >> 8);
+        }
+    }
+
+    // Stops the audio thread; the line is closed once its last block is written
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
@@ -0,0 +1,81 @@
+package reactor;
+
+// A histogram of durations in nanoseconds, bucketed the way HdrHistogram does it: values are
+// grouped by their highest set bit, and every group is split into SUB_BUCKETS linear
+// sub-buckets, so any value is kept to within 1 / SUB_BUCKETS of itself (about 3%) over the whole
+// range of a long. Recording is a few shifts and an increment, with no allocation.
+//
+// There is one writer per histogram. Readers on other threads see a slightly stale copy, which is
+// fine for monitoring.
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long sum;
+    private long max;
+    private volatile long count; // Written last, so a reader that reads it first sees the rest up to date
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[bucketOf(nanos)]++;
+        sum += nanos;
+        if (nanos > max) {
+            max = nanos;
+        }
+        count++;
+    }
+
+    // Values below SUB_BUCKETS get a bucket each. Above that, the values whose highest bit is m
+    // share SUB_BUCKETS buckets of width 2^(m - SUB_BITS).
+    private static int bucketOf(long value) {
+        int m = 63 - Long.numberOfLeadingZeros(value);
+        if (m < SUB_BITS) {
+            return (int) value;
+        }
+        int shift = m - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // The highest value that falls in a bucket
+    private static long highestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    // Read the count first for a sum and max that cover at least those values
+    public long getCount() { return count; }
+    public long getSum() { return sum; }
+    public long getMax() { return max; }
+
+    public double getMean() {
+        long n = count;
+        return n == 0 ? 0 : (double) sum / n;
+    }
+
+    // The value at or below which a fraction q of the recorded values fall, to within the
+    // bucket precision and never above the largest value recorded
+    public long getQuantile(double q) {
+        long n = count;
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * n));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return Math.min(highestIn(b), max);
+            }
+        }
+        return max;
+    }
+}
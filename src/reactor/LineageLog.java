@@ -0,0 +1,156 @@
+package reactor;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// The recent history of the chain reaction, in fixed memory. Every fission is recorded as an
+// event in a ring buffer (where and when it happened, and the generation of the neutron that
+// caused it); its children keep the event id. An event is forgotten once CAPACITY newer ones
+// have been recorded, and counts as expired after expiryFrames frames.
+//
+// Per generation it also counts the neutrons born, the ones that ended (decayed, absorbed or
+// split fuel) and the fissions they caused. A neutron emitted outside a fission is generation 0,
+// and the children of a generation g neutron are generation g + 1; deeper than
+// MAX_GENERATIONS - 1 they share the last bucket. Under a neutron budget one simulated neutron
+// stands for several, so the counts are of the neutrons they stand for and need not be whole.
+public class LineageLog {
+
+    public static final int CAPACITY = 4096; // Events kept, a power of two
+    public static final int MAX_GENERATIONS = 64;
+    public static final int CHILDREN_PER_FISSION = 3;
+    private static final int MASK = CAPACITY - 1;
+
+    // Events, by id & MASK
+    private final int[] eventId = new int[CAPACITY];
+    private final long[] eventFrame = new long[CAPACITY];
+    private final double[] eventX = new double[CAPACITY];
+    private final double[] eventY = new double[CAPACITY];
+    private final int[] eventGeneration = new int[CAPACITY];
+    private int nextEvent; // Id of the next event; wraps around, which only matters after 2^32 fissions
+    private long recorded; // Events ever recorded
+    private final int expiryFrames;
+
+    // Per generation
+    private final double[] born = new double[MAX_GENERATIONS];
+    private final double[] ended = new double[MAX_GENERATIONS];
+    private final double[] fissions = new double[MAX_GENERATIONS];
+    private double branchEnds; // Neutrons that ended without splitting fuel
+    private double branchEndDepth; // Sum of (generation + 1) over them
+
+    public LineageLog(int expiryFrames) {
+        this.expiryFrames = expiryFrames;
+        Arrays.fill(eventId, -1);
+    }
+
+    // The generation of the children of a neutron of generation g
+    public static int childGeneration(int g) {
+        return Math.min(g + 1, MAX_GENERATIONS - 1);
+    }
+
+    // Counts a neutron emitted outside a fission, which starts a new chain
+    public void recordBirth() {
+        born[0]++;
+    }
+
+    // Records a fission caused by a neutron of generation g at (x, y), and the end of that
+    // neutron and the birth of its children. The event stands for count fissions, by a weighted
+    // neutron in the fuel around (x, y). Returns the event id for the children to keep.
+    public int recordFission(long frame, double x, double y, int g, double count) {
+        int id = nextEvent++;
+        int slot = id & MASK;
+        eventId[slot] = id;
+        eventFrame[slot] = frame;
+        eventX[slot] = x;
+        eventY[slot] = y;
+        eventGeneration[slot] = g;
+        recorded++;
+
+        ended[g] += count;
+        fissions[g] += count;
+        born[childGeneration(g)] += CHILDREN_PER_FISSION * count;
+        return id;
+    }
+
+    // Counts neutrons of generation g that decayed or were absorbed, ending their branches of the chain
+    public void recordEnd(int g, double count) {
+        ended[g] += count;
+        branchEnds += count;
+        branchEndDepth += count * (g + 1);
+    }
+
+    // Counts neutrons of generation from that were merged into one of generation to, and go on
+    // as that generation. Nothing ends, so only the births move.
+    public void recordMerge(int from, int to, double count) {
+        born[from] -= count;
+        born[to] += count;
+    }
+
+    // Whether an event is still in the buffer and younger than expiryFrames at the given frame
+    public boolean isLive(int id, long frame) {
+        int slot = id & MASK;
+        return id != -1 && eventId[slot] == id && frame - eventFrame[slot] <= expiryFrames;
+    }
+
+    // Event fields, valid while isLive(id, frame)
+    public long getFrame(int id) { return eventFrame[id & MASK]; }
+    public double getX(int id) { return eventX[id & MASK]; }
+    public double getY(int id) { return eventY[id & MASK]; }
+    public int getGeneration(int id) { return eventGeneration[id & MASK]; }
+
+    public long getRecorded() { return recorded; }
+    public int getExpiryFrames() { return expiryFrames; }
+    public double getBorn(int g) { return born[g]; }
+    public double getEnded(int g) { return ended[g]; }
+    public double getFissions(int g) { return fissions[g]; }
+
+    // Children per neutron of generation g, over the neutrons of that generation that have ended.
+    // Above 1 the chain grows from that generation to the next.
+    public double getMultiplicationFactor(int g) {
+        return ended[g] == 0 ? 0 : CHILDREN_PER_FISSION * fissions[g] / ended[g];
+    }
+
+    // The same over every generation
+    public double getMultiplicationFactor() {
+        double allEnded = 0, allFissions = 0;
+        for (int g = 0; g < MAX_GENERATIONS; g++) {
+            allEnded += ended[g];
+            allFissions += fissions[g];
+        }
+        return allEnded == 0 ? 0 : CHILDREN_PER_FISSION * allFissions / allEnded;
+    }
+
+    // Mean number of generations from the start of a chain to a neutron that ended it
+    public double getMeanChainLength() {
+        return branchEnds == 0 ? 0 : branchEndDepth / branchEnds;
+    }
+
+    public void write(Checkpoint out) throws IOException {
+        out.putInt(nextEvent);
+        out.putLong(recorded);
+        out.putInts(eventId, CAPACITY);
+        out.putLongs(eventFrame, CAPACITY);
+        out.putDoubles(eventX, CAPACITY);
+        out.putDoubles(eventY, CAPACITY);
+        out.putInts(eventGeneration, CAPACITY);
+        out.putDoubles(born, MAX_GENERATIONS);
+        out.putDoubles(ended, MAX_GENERATIONS);
+        out.putDoubles(fissions, MAX_GENERATIONS);
+        out.putDouble(branchEnds);
+        out.putDouble(branchEndDepth);
+    }
+
+    public void read(Checkpoint in) throws IOException {
+        nextEvent = in.getInt();
+        recorded = in.getLong();
+        in.getInts(eventId, CAPACITY);
+        in.getLongs(eventFrame, CAPACITY);
+        in.getDoubles(eventX, CAPACITY);
+        in.getDoubles(eventY, CAPACITY);
+        in.getInts(eventGeneration, CAPACITY);
+        in.getDoubles(born, MAX_GENERATIONS);
+        in.getDoubles(ended, MAX_GENERATIONS);
+        in.getDoubles(fissions, MAX_GENERATIONS);
+        branchEnds = in.getDouble();
+        branchEndDepth = in.getDouble();
+    }
+}
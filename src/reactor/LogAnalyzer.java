@@ -0,0 +1,335 @@
+package reactor;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Summarizes a LogManager log (either format) without loading it. The file is read through
+// memory-mapped windows, a record at a time, into at most maxBuckets buckets of consecutive
+// records, each keeping the min, max and mean of every column. When the buckets run out,
+// neighbours are merged and every bucket holds twice as many records, so a run of any length
+// summarizes to a file of the same small size, which logViewer.py loads at once.
+//
+// read() picks up from where the last one stopped and leaves a half-written record for the
+// next, so a log can be followed while a run is still writing it.
+public class LogAnalyzer {
+
+    public static final String[] COLUMNS = LogManager.CSV_HEADER.split(",");
+
+    private static final long WINDOW = 64L << 20; // Bytes mapped at a time, unless a record needs more
+    private static final long POLL_MILLIS = 500; // How often --follow looks for new records
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15 };
+
+    private final File logFile;
+    private final int maxBuckets;
+    private final long window;
+
+    // Buckets: [column][bucket]. Bucket b holds the records from b * bucketRecords on.
+    private final double[][] min;
+    private final double[][] max;
+    private final double[][] sum;
+    private final double[] row = new double[COLUMNS.length];
+    private long bucketRecords = 1; // Records in every bucket but the last
+    private long records;
+
+    // How far the file has been read
+    private LogManager.Format format; // Null until the header has been read
+    private long position;
+
+    public LogAnalyzer(File logFile, int maxBuckets) {
+        this(logFile, maxBuckets, WINDOW);
+    }
+
+    // With a smaller window, records straddle the window boundaries more often
+    LogAnalyzer(File logFile, int maxBuckets, long window) {
+        if (maxBuckets < 2 || maxBuckets % 2 != 0) {
+            throw new IllegalArgumentException("Buckets must be even and at least 2: " + maxBuckets);
+        }
+        this.logFile = logFile;
+        this.maxBuckets = maxBuckets;
+        this.window = window;
+        min = new double[COLUMNS.length][maxBuckets];
+        max = new double[COLUMNS.length][maxBuckets];
+        sum = new double[COLUMNS.length][maxBuckets];
+    }
+
+    public long getRecords() { return records; }
+    public long getBucketRecords() { return bucketRecords; }
+    public int getBucketCount() { return (int) ((records + bucketRecords - 1) / bucketRecords); }
+
+    // Reads the complete records written since the last call, and returns how many there were.
+    // A log that has shrunk was started over by a new run, and is read again from the top.
+    public long read() throws IOException {
+        long before = records;
+        try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < position) {
+                reset();
+                before = 0;
+            }
+            long length = window;
+            while (position < size) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(length, size - position));
+                int used;
+                if (format == null) {
+                    used = readHeader(mapped);
+                } else if (format == LogManager.Format.CSV) {
+                    used = readCsv(mapped);
+                } else {
+                    used = readBinary(mapped);
+                }
+                if (used == 0) {
+                    if (position + length >= size) {
+                        break; // The rest is a record still being written
+                    }
+                    length *= 2; // A whole record did not fit in the window
+                    continue;
+                }
+                position += used;
+                length = window;
+            }
+        }
+        return records - before;
+    }
+
+    private void reset() {
+        format = null;
+        position = 0;
+        records = 0;
+        bucketRecords = 1;
+    }
+
+    // Returns the length of the header, or 0 if it is not all there yet
+    private int readHeader(MappedByteBuffer window) throws IOException {
+        if (window.limit() >= 4 && window.getInt(0) == LogManager.BINARY_MAGIC) {
+            if (window.limit() < 12) {
+                return 0;
+            }
+            if (window.getInt(4) != LogManager.BINARY_VERSION || window.getInt(8) != LogManager.COLUMNS) {
+                throw new IOException("Unsupported log version " + window.getInt(4) + " with " + window.getInt(8) + " columns");
+            }
+            format = LogManager.Format.BINARY;
+            return 12;
+        }
+        for (int i = 0; i < window.limit(); i++) {
+            if (window.get(i) == '\n') {
+                format = LogManager.Format.CSV;
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    // Adds every complete line, and returns the length of them
+    private int readCsv(MappedByteBuffer window) throws IOException {
+        int lineStart = 0;
+        for (int i = 0; i < window.limit(); i++) {
+            if (window.get(i) != '\n') {
+                continue;
+            }
+            int column = 0;
+            int fieldStart = lineStart;
+            for (int j = lineStart; j <= i && column < COLUMNS.length; j++) {
+                byte b = window.get(j);
+                if (b == ',' || b == '\n' || b == '\r') {
+                    row[column++] = parseNumber(window, fieldStart, j);
+                    fieldStart = j + 1;
+                    if (b != ',') {
+                        break;
+                    }
+                }
+            }
+            if (column == COLUMNS.length) {
+                add(row);
+            } else if (i > lineStart + 1) {
+                throw new IOException("Expected " + COLUMNS.length + " columns in " + logFile + " at byte " + (position + lineStart));
+            }
+            lineStart = i + 1;
+        }
+        return lineStart;
+    }
+
+    // Parses the digits LogManager writes without making a string. Anything else (NaN, Inf,
+    // exponents, or more digits than a double holds exactly) goes through Double.parseDouble.
+    private static double parseNumber(MappedByteBuffer window, int from, int to) {
+        boolean negative = false;
+        long digits = 0;
+        int count = 0;
+        int decimals = -1; // Digits after the point, -1 before it
+        for (int i = from; i < to; i++) {
+            byte b = window.get(i);
+            if (b >= '0' && b <= '9') {
+                digits = digits * 10 + (b - '0');
+                count++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else if (b == '-' && i == from) {
+                negative = true;
+            } else if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                count = Integer.MAX_VALUE;
+                break;
+            }
+        }
+        if (count == 0 || count > 15) {
+            byte[] text = new byte[to - from];
+            for (int i = from; i < to; i++) {
+                text[i - from] = window.get(i);
+            }
+            String number = new String(text, StandardCharsets.UTF_8).trim();
+            return Double.parseDouble(number.endsWith("Inf") ? number + "inity" : number);
+        }
+
+        // Both sides are exact, so the division rounds the way parseDouble does
+        double value = decimals > 0 ? digits / POWERS_OF_TEN[decimals] : digits;
+        return negative ? -value : value;
+    }
+
+    // Adds every complete block, and returns the length of them
+    private int readBinary(MappedByteBuffer window) throws IOException {
+        int p = 0;
+        while (window.limit() - p >= 4) {
+            int rows = window.getInt(p);
+            if (rows < 0) {
+                throw new IOException("Bad block in " + logFile + " at byte " + (position + p));
+            }
+            int length = 4 + rows * (3 * Double.BYTES + 4 * Integer.BYTES);
+            if (window.limit() - p < length) {
+                break;
+            }
+            int doubles = p + 4;
+            int ints = doubles + 3 * rows * Double.BYTES;
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < 3; c++) {
+                    row[c] = window.getDouble(doubles + (c * rows + r) * Double.BYTES);
+                }
+                for (int c = 0; c < 4; c++) {
+                    row[3 + c] = window.getInt(ints + (c * rows + r) * Integer.BYTES);
+                }
+                add(row);
+            }
+            p += length;
+        }
+        return p;
+    }
+
+    private void add(double[] values) {
+        int b = (int) (records / bucketRecords);
+        if (b == maxBuckets) {
+            mergeBuckets();
+            b = (int) (records / bucketRecords);
+        }
+        boolean first = records % bucketRecords == 0;
+        for (int c = 0; c < values.length; c++) {
+            double v = values[c];
+            if (first) {
+                min[c][b] = v;
+                max[c][b] = v;
+                sum[c][b] = v;
+            } else {
+                min[c][b] = Math.min(min[c][b], v);
+                max[c][b] = Math.max(max[c][b], v);
+                sum[c][b] += v;
+            }
+        }
+        records++;
+    }
+
+    // Halves the buckets by merging each pair of neighbours. Every bucket is full when this runs.
+    private void mergeBuckets() {
+        for (int c = 0; c < COLUMNS.length; c++) {
+            for (int b = 0; b < maxBuckets / 2; b++) {
+                min[c][b] = Math.min(min[c][2 * b], min[c][2 * b + 1]);
+                max[c][b] = Math.max(max[c][2 * b], max[c][2 * b + 1]);
+                sum[c][b] = sum[c][2 * b] + sum[c][2 * b + 1];
+            }
+        }
+        bucketRecords *= 2;
+    }
+
+    // Writes a CSV line per bucket: its first record, how many records it holds, and then the
+    // min, max and mean of every column. The file is replaced in one move, so a reader never
+    // sees half of it.
+    public void writeSummary(File out) throws IOException {
+        File temporary = new File(out.getPath() + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(temporary, StandardCharsets.UTF_8))) {
+            StringBuilder line = new StringBuilder("first,records");
+            for (String column : COLUMNS) {
+                line.append(',').append(column).append("_min,").append(column).append("_max,").append(column).append("_mean");
+            }
+            writer.write(line.append('\n').toString());
+
+            for (int b = 0; b < getBucketCount(); b++) {
+                long first = b * bucketRecords;
+                long count = Math.min(bucketRecords, records - first);
+                line.setLength(0);
+                line.append(first).append(',').append(count);
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    line.append(',').append(min[c][b]).append(',').append(max[c][b]).append(',').append(sum[c][b] / count);
+                }
+                writer.write(line.append('\n').toString());
+            }
+        }
+        try {
+            Files.move(temporary.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            Files.move(temporary.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // log.csv summarizes to log.summary.csv
+    public static File summaryFileFor(File logFile) {
+        String name = logFile.getName();
+        int dot = name.lastIndexOf('.');
+        return new File(logFile.getAbsoluteFile().getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + ".summary.csv");
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // Usage: java reactor.LogAnalyzer [<log>] [--out <summary>] [--buckets <n>] [--follow]
+        File logFile = new File("log.csv");
+        File out = null;
+        int buckets = 2048;
+        boolean follow = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--out") && i + 1 < args.length) {
+                out = new File(args[++i]);
+            } else if (args[i].equals("--buckets") && i + 1 < args.length) {
+                buckets = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--follow")) {
+                follow = true;
+            } else if (!args[i].startsWith("--")) {
+                logFile = new File(args[i]);
+            }
+        }
+        if (out == null) {
+            out = summaryFileFor(logFile);
+        }
+
+        // A followed log may not have been started yet
+        LogAnalyzer analyzer = new LogAnalyzer(logFile, buckets);
+        if (!follow || logFile.exists()) {
+            long start = System.nanoTime();
+            analyzer.read();
+            analyzer.writeSummary(out);
+            System.out.println(String.format("Summarized %d records of %s in %.3fs, %d per bucket, into %s",
+                    analyzer.getRecords(), logFile, (System.nanoTime() - start) / 1e9, analyzer.getBucketRecords(), out));
+        }
+
+        // Keep the summary up to date until the process is stopped
+        while (follow) {
+            Thread.sleep(POLL_MILLIS);
+            if (logFile.exists() && analyzer.read() != 0) {
+                analyzer.writeSummary(out);
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package reactor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+// Writes the reactor telemetry (one record per logged frame) on a background thread.
+// record() copies the values into a preallocated ring buffer and returns straight away, so the
+// simulation thread never waits on the disk. The writer thread keeps one channel open and
+// writes whatever has queued up in a single batch.
+//
+// Two formats are supported:
+//  - CSV: the "Δt,t,Σe,n,d,u,g" text that logViewer.py reads
+//  - BINARY: a header, then blocks of columns. Each block is a row count followed by every
+//    column in turn (Δt, t, Σe as doubles, then n, d, u, g as ints), all big-endian.
+public class LogManager implements AutoCloseable {
+
+    public enum Format { CSV, BINARY }
+
+    public static final String CSV_HEADER = "Δt,t,Σe,n,d,u,g";
+    public static final int BINARY_MAGIC = 0x524C4F47; // "RLOG"
+    public static final int BINARY_VERSION = 1;
+    public static final int COLUMNS = 7;
+
+    private static final int CAPACITY = 1 << 14; // Records, must be a power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final int CSV_RECORD_BYTES = 160; // More than the longest CSV record, about 120 bytes
+    private static final long IDLE_WAIT_NANOS = 5_000_000; // How long the writer sleeps when there is nothing to write
+
+    private final File logFile;
+    private final Format format;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final Thread writer;
+    private final Thread shutdownHook = new Thread(this::close);
+
+    // Ring buffer columns
+    private final double[] dt = new double[CAPACITY];
+    private final double[] t = new double[CAPACITY];
+    private final double[] e = new double[CAPACITY];
+    private final int[] n = new int[CAPACITY];
+    private final int[] d = new int[CAPACITY];
+    private final int[] u = new int[CAPACITY];
+    private final int[] g = new int[CAPACITY];
+
+    private volatile long head; // Next record to be filled, only written by the simulation thread
+    private volatile long tail; // Next record to be written out, only written by the writer thread
+    private volatile boolean closed;
+    private long dropped; // Records lost because the ring was full
+
+    // log.csv or log.bin in the working directory, where runs log unless told otherwise
+    public static File defaultFile(Format format) {
+        return new File(format == Format.CSV ? "log.csv" : "log.bin");
+    }
+
+    public LogManager(File logFile) {
+        this(logFile, Format.CSV);
+    }
+
+    public LogManager(File logFile, Format format) {
+        this.logFile = logFile;
+        this.format = format;
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException ex) {
+            System.err.println("Error writing to file: " + ex.getMessage());
+        }
+        this.channel = channel;
+
+        // Big enough for a full ring in either format
+        this.buffer = ByteBuffer.allocateDirect(CAPACITY * (format == Format.CSV ? CSV_RECORD_BYTES : 40) + 64);
+        writeHeader();
+
+        this.writer = new Thread(this::drainLoop, "log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public File getLogFile() {
+        return logFile;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    // Queues one record. Never blocks; returns false and drops the record if the writer has
+    // fallen a whole ring behind. Must always be called from the same thread.
+    public boolean record(double dt, double t, double e, int n, int d, int u, int g) {
+        long h = head;
+        if (h - tail >= CAPACITY || closed) {
+            dropped++;
+            return false;
+        }
+        int i = (int) (h & MASK);
+        this.dt[i] = dt;
+        this.t[i] = t;
+        this.e[i] = e;
+        this.n[i] = n;
+        this.d[i] = d;
+        this.u[i] = u;
+        this.g[i] = g;
+        head = h + 1;
+        return true;
+    }
+
+    // Writes everything queued so far and stops the writer
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ex) {
+                // Already shutting down
+            }
+        }
+        LockSupport.unpark(writer);
+        if (Thread.currentThread() != writer) {
+            try {
+                writer.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            boolean stopping = closed;
+            long end = head;
+            if (end == tail) {
+                if (stopping) {
+                    break;
+                }
+                LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+                continue;
+            }
+            writeBatch(tail, end);
+            tail = end;
+        }
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException ex) {
+            System.err.println("Error writing to file: " + ex.getMessage());
+        }
+    }
+
+    private void writeHeader() {
+        buffer.clear();
+        if (format == Format.CSV) {
+            buffer.put((CSV_HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+        } else {
+            buffer.putInt(BINARY_MAGIC).putInt(BINARY_VERSION).putInt(COLUMNS);
+        }
+        flushBuffer();
+    }
+
+    private void writeBatch(long from, long to) {
+        buffer.clear();
+        if (format == Format.CSV) {
+            for (long s = from; s < to; s++) {
+                if (buffer.remaining() < CSV_RECORD_BYTES) {
+                    flushBuffer();
+                    buffer.clear();
+                }
+                int i = (int) (s & MASK);
+                putFixed(dt[i]);
+                buffer.put((byte) ',');
+                putFixed(t[i]);
+                buffer.put((byte) ',');
+                putFixed(e[i]);
+                buffer.put((byte) ',');
+                putLong(n[i]);
+                buffer.put((byte) ',');
+                putLong(d[i]);
+                buffer.put((byte) ',');
+                putLong(u[i]);
+                buffer.put((byte) ',');
+                putLong(g[i]);
+                buffer.put((byte) '\n');
+            }
+        } else {
+            buffer.putInt((int) (to - from));
+            for (double[] column : new double[][] { dt, t, e }) {
+                for (long s = from; s < to; s++) {
+                    buffer.putDouble(column[(int) (s & MASK)]);
+                }
+            }
+            for (int[] column : new int[][] { n, d, u, g }) {
+                for (long s = from; s < to; s++) {
+                    buffer.putInt(column[(int) (s & MASK)]);
+                }
+            }
+        }
+        flushBuffer();
+    }
+
+    private void flushBuffer() {
+        buffer.flip();
+        try {
+            while (channel != null && buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException ex) {
+            System.err.println("Error writing to file: " + ex.getMessage());
+        }
+    }
+
+    // Writes a double with three decimals, like String.format("%.3f") but without allocating.
+    // NaN and infinities are written as NaN, Inf and -Inf, and values too big for three
+    // decimals in scientific notation, so a record never gets longer than CSV_RECORD_BYTES.
+    private void putFixed(double value) {
+        if (Double.isNaN(value)) {
+            buffer.put((byte) 'N').put((byte) 'a').put((byte) 'N');
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        if (Double.isInfinite(value)) {
+            buffer.put((byte) 'I').put((byte) 'n').put((byte) 'f');
+            return;
+        }
+        if (value >= 1e15) {
+            putScientific(value);
+            return;
+        }
+        long millis = Math.round(value * 1000);
+        putLong(millis / 1000);
+        putMillis(millis % 1000);
+    }
+
+    // Writes a finite value of at least 1 as a digit, three decimals and an exponent
+    private void putScientific(double value) {
+        int exponent = (int) Math.floor(Math.log10(value));
+        long millis = Math.round(value / Math.pow(10, exponent) * 1000);
+        if (millis >= 10000) {
+            millis /= 10;
+            exponent++;
+        } else if (millis < 1000) {
+            millis *= 10;
+            exponent--;
+        }
+        putLong(millis / 1000);
+        putMillis(millis % 1000);
+        buffer.put((byte) 'e');
+        putLong(exponent);
+    }
+
+    private void putMillis(long fraction) {
+        buffer.put((byte) '.');
+        buffer.put((byte) ('0' + fraction / 100));
+        buffer.put((byte) ('0' + fraction / 10 % 10));
+        buffer.put((byte) ('0' + fraction % 10));
+    }
+
+    private void putLong(long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        if (value >= 10) {
+            putLong(value / 10);
+        }
+        buffer.put((byte) ('0' + value % 10));
+    }
+}
@@ -0,0 +1,167 @@
+package reactor;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+public class Main {
+
+    private static final int PREF_W = 800; // Initial window width
+    private static final int PREF_H = 600; // Initial window height
+
+    public static void createAndShowGUI(ReactorEngine engine, int substeps, LogManager.Format logFormat) {
+        JFrame frame = new JFrame("Nuclear Reactor Simulation");
+        Simulation gamePanel = new Simulation(engine, substeps, logFormat);
+
+        frame.getContentPane().add(gamePanel);
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setVisible(true);
+    }
+
+    // Runs the reactor without a window, as fast as possible, logging to log.csv (or log.bin).
+    // The final state is checkpointed to saveFile unless it is null.
+    public static void runHeadless(ReactorEngine engine, long frames, LogManager.Format logFormat, File saveFile) throws IOException {
+        LogManager logManager = new LogManager(LogManager.defaultFile(logFormat), logFormat);
+        engine.setLogManager(logManager);
+
+        long start = System.nanoTime();
+        engine.run(frames);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        logManager.close();
+        if (logManager.getDropped() > 0) {
+            System.err.println("Dropped " + logManager.getDropped() + " log records");
+        }
+
+        System.out.println(String.format("Simulated %d frames in %.3fs (%.0f frames/s), seed %d", frames, seconds, frames / seconds, engine.getSeed()));
+
+        if (saveFile != null) {
+            start = System.nanoTime();
+            engine.saveCheckpoint(saveFile);
+            System.out.println(String.format("Saved frame %d to %s in %.3fs", engine.getFrame(), saveFile, (System.nanoTime() - start) / 1e9));
+        }
+    }
+
+    // Restores a checkpoint, reseeding it when a seed is given so forks of it diverge
+    private static ReactorEngine loadEngine(File loadFile, Long seed) throws IOException {
+        long start = System.nanoTime();
+        ReactorEngine engine = ReactorEngine.loadCheckpoint(loadFile);
+        System.out.println(String.format("Loaded frame %d from %s in %.3fs", engine.getFrame(), loadFile, (System.nanoTime() - start) / 1e9));
+        if (seed != null) {
+            engine.setSeed(seed);
+        }
+        return engine;
+    }
+
+    public static void main(String[] args) throws IOException {
+        // Usage: java Main [--headless <frames>] [--seed <seed>] [--parallel] [--event-degradation] [--log-every <frames>] [--log-format csv|binary] [--substeps <n>]
+        //                  [--load <checkpoint>] [--save <checkpoint>] [--vector] [--moderators <layout>] [--fuel <sites>]
+        //                  [--metrics-port <port>] [--neutron-budget <n>]
+        long headlessFrames = -1;
+        Long seed = null;
+        boolean parallel = false;
+        boolean eventDriven = false;
+        Integer logInterval = null; // The engine's own unless given
+        LogManager.Format logFormat = LogManager.Format.CSV;
+        int substeps = 1;
+        File loadFile = null;
+        File saveFile = null;
+        boolean vectorized = false;
+        File moderatorFile = null;
+        ReactorConfig config = new ReactorConfig();
+        boolean configured = false; // Whether any option set up the new reactor's config
+        int metricsPort = -1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--headless") && i + 1 < args.length) {
+                headlessFrames = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                seed = Long.valueOf(args[++i]);
+            } else if (args[i].equals("--parallel")) {
+                parallel = true;
+            } else if (args[i].equals("--event-degradation")) {
+                eventDriven = true;
+            } else if (args[i].equals("--log-every") && i + 1 < args.length) {
+                logInterval = Integer.parseInt(args[++i]) - 1;
+            } else if (args[i].equals("--log-format") && i + 1 < args.length) {
+                logFormat = LogManager.Format.valueOf(args[++i].toUpperCase());
+            } else if (args[i].equals("--substeps") && i + 1 < args.length) {
+                substeps = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--load") && i + 1 < args.length) {
+                loadFile = new File(args[++i]);
+            } else if (args[i].equals("--save") && i + 1 < args.length) {
+                saveFile = new File(args[++i]);
+            } else if (args[i].equals("--vector")) {
+                vectorized = true;
+            } else if (args[i].equals("--moderators") && i + 1 < args.length) {
+                moderatorFile = new File(args[++i]);
+            } else if (args[i].equals("--fuel") && i + 1 < args.length) {
+                config.fuelCount = Integer.parseInt(args[++i]);
+                configured = true;
+            } else if (args[i].equals("--metrics-port") && i + 1 < args.length) {
+                metricsPort = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--neutron-budget") && i + 1 < args.length) {
+                config.neutronBudget = Integer.parseInt(args[++i]);
+                configured = true;
+            }
+        }
+        if (loadFile != null && configured) {
+            throw new IllegalArgumentException("--fuel and --neutron-budget set up a new reactor, a loaded checkpoint keeps the config it was saved with");
+        }
+
+        // Start from a checkpoint or from a fresh lattice, in a world that grows to hold it
+        ReactorEngine engine;
+        if (loadFile != null) {
+            engine = loadEngine(loadFile, seed);
+        } else {
+            engine = new ReactorEngine(PREF_W, PREF_H, seed != null ? seed : System.nanoTime(), config);
+        }
+        if (moderatorFile != null) {
+            engine.setModerators(ModeratorTree.readLayout(moderatorFile));
+        }
+
+        // The stepping modes and log interval apply to the window as well as to headless runs.
+        // A loaded checkpoint keeps its degradation mode and log phase unless they are given.
+        if (parallel) {
+            engine.setParallel(true);
+        }
+        if (eventDriven) {
+            engine.setEventDrivenDegradation(true);
+        }
+        if (logInterval != null) {
+            engine.setLogInterval(logInterval);
+        }
+        if (vectorized && !engine.setVectorized(true)) {
+            System.err.println("The Vector API is not loaded, run java with --add-modules jdk.incubator.vector. Using scalar kernels.");
+        }
+
+        // Serve the phase times and counters for Prometheus
+        MetricsServer metricsServer = null;
+        if (metricsPort >= 0) {
+            metricsServer = new MetricsServer(engine.getMetrics(), metricsPort);
+            System.out.println("Serving metrics on http://localhost:" + metricsServer.getPort() + "/metrics");
+        }
+
+        if (headlessFrames >= 0) {
+            try {
+                runHeadless(engine, headlessFrames, logFormat, saveFile);
+            } finally {
+                if (metricsServer != null) {
+                    metricsServer.close();
+                }
+            }
+            return;
+        }
+
+        final int guiSubsteps = substeps;
+        final LogManager.Format guiLogFormat = logFormat;
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                createAndShowGUI(engine, guiSubsteps, guiLogFormat);
+            }
+        });
+    }
+}
@@ -0,0 +1,171 @@
+package reactor;
+
+import java.awt.Rectangle;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// A static bounding volume hierarchy over the moderator blocks. Every node holds the bounds of
+// the blocks below it, split in half along the longer side of those bounds, so finding the
+// block a neutron touches visits O(log n) nodes. The blocks never move, so it is built once.
+public class ModeratorTree {
+
+    private static final int LEAF_SIZE = 4; // Blocks per leaf
+
+    // Block bounds, in tree order: leaf nodes cover contiguous slots
+    private final double[] blockMinX;
+    private final double[] blockMinY;
+    private final double[] blockMaxX;
+    private final double[] blockMaxY;
+    private final int[] blockIndex; // Index of each slot in the list the tree was built from
+
+    // Nodes, the root first. Each covers slots [start, end); a leaf has no children (left == -1)
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+    private final int[] left;
+    private final int[] right;
+    private final int[] start;
+    private final int[] end;
+    private int nodeCount;
+
+    public ModeratorTree(List<Rectangle> blocks) {
+        int n = blocks.size();
+        blockMinX = new double[n];
+        blockMinY = new double[n];
+        blockMaxX = new double[n];
+        blockMaxY = new double[n];
+        blockIndex = new int[n];
+
+        int capacity = Math.max(1, 2 * n);
+        minX = new double[capacity];
+        minY = new double[capacity];
+        maxX = new double[capacity];
+        maxY = new double[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        start = new int[capacity];
+        end = new int[capacity];
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        if (n > 0) {
+            build(blocks, order, 0, n);
+        }
+        for (int k = 0; k < n; k++) {
+            Rectangle block = blocks.get(order[k]);
+            blockMinX[k] = block.x;
+            blockMinY[k] = block.y;
+            blockMaxX[k] = block.x + block.width;
+            blockMaxY[k] = block.y + block.height;
+            blockIndex[k] = order[k];
+        }
+    }
+
+    // Builds the node for order[from .. to) and returns its index
+    private int build(List<Rectangle> blocks, Integer[] order, int from, int to) {
+        int node = nodeCount++;
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int k = from; k < to; k++) {
+            Rectangle block = blocks.get(order[k]);
+            x0 = Math.min(x0, block.x);
+            y0 = Math.min(y0, block.y);
+            x1 = Math.max(x1, block.x + block.width);
+            y1 = Math.max(y1, block.y + block.height);
+        }
+        minX[node] = x0;
+        minY[node] = y0;
+        maxX[node] = x1;
+        maxY[node] = y1;
+        start[node] = from;
+        end[node] = to;
+        left[node] = -1;
+        right[node] = -1;
+        if (to - from <= LEAF_SIZE) {
+            return node;
+        }
+
+        // Split at the median center along the longer side
+        if (x1 - x0 >= y1 - y0) {
+            Arrays.sort(order, from, to, (a, b) -> Integer.compare(2 * blocks.get(a).x + blocks.get(a).width, 2 * blocks.get(b).x + blocks.get(b).width));
+        } else {
+            Arrays.sort(order, from, to, (a, b) -> Integer.compare(2 * blocks.get(a).y + blocks.get(a).height, 2 * blocks.get(b).y + blocks.get(b).height));
+        }
+        int mid = (from + to) >>> 1;
+        left[node] = build(blocks, order, from, mid);
+        right[node] = build(blocks, order, mid, to);
+        return node;
+    }
+
+    public int size() {
+        return blockIndex.length;
+    }
+
+    // Returns the index of a block the circle touches, or -1. The blocks are searched in a
+    // fixed order, so the same query always returns the same block.
+    public int findHit(double x, double y, double radius) {
+        return blockIndex.length == 0 ? -1 : findHit(0, x, y, radius * radius);
+    }
+
+    private int findHit(int node, double x, double y, double radiusSquared) {
+        if (distanceSquared(x, y, minX[node], minY[node], maxX[node], maxY[node]) > radiusSquared) {
+            return -1;
+        }
+        if (left[node] == -1) {
+            for (int k = start[node]; k < end[node]; k++) {
+                if (distanceSquared(x, y, blockMinX[k], blockMinY[k], blockMaxX[k], blockMaxY[k]) <= radiusSquared) {
+                    return blockIndex[k];
+                }
+            }
+            return -1;
+        }
+        int hit = findHit(left[node], x, y, radiusSquared);
+        return hit != -1 ? hit : findHit(right[node], x, y, radiusSquared);
+    }
+
+    // Squared distance from a point to the nearest point of a box, 0 inside it
+    private static double distanceSquared(double x, double y, double x0, double y0, double x1, double y1) {
+        double dx = x - Math.max(x0, Math.min(x, x1));
+        double dy = y - Math.max(y0, Math.min(y, y1));
+        return dx * dx + dy * dy;
+    }
+
+    // Reads a layout file: one block per line as "x y width height", separated by spaces or
+    // commas. Blank lines and lines starting with # are skipped.
+    public static ArrayList<Rectangle> readLayout(File file) throws IOException {
+        ArrayList<Rectangle> blocks = new ArrayList<Rectangle>();
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            int lineNumber = 0;
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("[\\s,]+");
+                if (fields.length != 4) {
+                    throw new IOException(file + ":" + lineNumber + ": expected x y width height");
+                }
+                try {
+                    int width = Integer.parseInt(fields[2]);
+                    int height = Integer.parseInt(fields[3]);
+                    if (width <= 0 || height <= 0) {
+                        throw new IOException(file + ":" + lineNumber + ": blocks need a positive size");
+                    }
+                    blocks.add(new Rectangle(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]), width, height));
+                } catch (NumberFormatException ex) {
+                    throw new IOException(file + ":" + lineNumber + ": " + ex.getMessage());
+                }
+            }
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,33 @@
+package reactor;
+
+// The bulk arithmetic of the neutron phase, over the primitive arrays of a ParticleStore.
+// scalar() always works; vector() uses jdk.incubator.vector and is only available when the
+// JVM was started with --add-modules jdk.incubator.vector. Both give bit-identical results.
+public interface NeutronKernels {
+
+    // Moves the particles in slots [from, to) by their velocity and reflects them off the
+    // bounds 0..maxX and 0..maxY, like ParticleStore.move() then bounceBounds()
+    void moveAndBounce(ParticleStore particles, int from, int to, double maxX, double maxY);
+
+    // Returns the first k in [from, to) with (xs[k] - x)^2 + (ys[k] - y)^2 < radiusSquared, or -1
+    int firstWithin(double[] xs, double[] ys, int from, int to, double x, double y, double radiusSquared);
+
+    String getName();
+
+    static NeutronKernels scalar() {
+        return ScalarKernels.INSTANCE;
+    }
+
+    // The SIMD kernels, or null when the incubator module is not loaded
+    static NeutronKernels vector() {
+        if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            return null;
+        }
+        try {
+            // Loaded by name so nothing links against the module unless it is there
+            return (NeutronKernels) Class.forName("reactor.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            return null;
+        }
+    }
+}
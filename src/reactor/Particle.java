@@ -1,3 +1,5 @@
+package reactor;
+
 public class Particle {
     
     public static final int FRAME_COOLDOWN = 15;
@@ -9,9 +11,6 @@ public class Particle {
     public ParticleType type;
     public int framesSinceChange;
 
-    public Particle parent = null; // Track which particle caused this one
-    public long creationTime; // Track when the particle was created
-
     public Particle(double x, double y, double theta, ParticleType type) {
         this.x = x;
         this.y = y;
@@ -19,14 +18,8 @@ public class Particle {
         this.dy = Math.sin(theta) * type.getDefaultSpeed();
         this.type = type;
         this.framesSinceChange = FRAME_COOLDOWN;
-        this.creationTime = System.currentTimeMillis();
     }
 
-    // Add this helper method
-    public void setParent(Particle parent) {
-        this.parent = parent;
-        this.creationTime = System.currentTimeMillis();
-    }
     public Particle(double x, double y, ParticleType type) {
         this(x, y, 0, type);
     }
@@ -0,0 +1,300 @@
+package reactor;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Structure-of-arrays storage for a population of particles. Each particle is a slot index
+// into the primitive arrays below. Removal swaps the last particle into the freed slot, so the
+// live particles always occupy [0, size()) and freed slots are reused by the next add().
+// The arrays only ever grow, so a population at steady state allocates nothing.
+// A stationary store (the fuel) has no velocities, lineage, weights or spreads, and leaves those arrays null.
+public class ParticleStore {
+
+    private static final ParticleType[] TYPES = ParticleType.values();
+    private static final int INITIAL_CAPACITY = 64;
+
+    public double[] x;
+    public double[] y;
+    public double[] dx; // Null in a stationary store
+    public double[] dy;
+    public byte[] type; // ParticleType ordinal
+    public int[] framesSinceChange; // Relative to ticks, read through getFramesSinceChange()
+    public int[] parentEvent; // LineageLog event of the fission that emitted this particle, or -1
+    public int[] generation; // Fissions between this particle and the start of its chain
+    public double[] weight; // Real particles this one stands for, 1 unless the engine merges or splits them
+    public int[] spread; // Bit k set where the k-th place around a weighted particle holds real ones, bit 0 alone for a lone one
+
+    private final boolean moving; // False for a stationary store
+    private int size;
+    private final int[] counts = new int[TYPES.length]; // Live particles of each type
+
+    // Slots whose type changed since the last clearChanges(), when tracking is on
+    private int[] changes;
+    private int changeCount;
+    private boolean changesOverflowed;
+    private int ticks; // Added to every framesSinceChange, so tickAll() is O(1)
+
+    public ParticleStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ParticleStore(int capacity) {
+        this(capacity, true);
+    }
+
+    public ParticleStore(int capacity, boolean moving) {
+        this.moving = moving;
+        capacity = Math.max(capacity, 1);
+        x = new double[capacity];
+        y = new double[capacity];
+        type = new byte[capacity];
+        framesSinceChange = new int[capacity];
+        if (moving) {
+            dx = new double[capacity];
+            dy = new double[capacity];
+            parentEvent = new int[capacity];
+            generation = new int[capacity];
+            weight = new double[capacity];
+            spread = new int[capacity];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+        Arrays.fill(counts, 0);
+    }
+
+    // Number of live particles of a type, kept up to date by add, remove and setType
+    public int getCount(ParticleType type) {
+        return counts[type.ordinal()];
+    }
+
+    // Adds a particle that starts a chain and returns its slot
+    public int add(double x, double y, double dx, double dy, ParticleType type, int parentEvent) {
+        return add(x, y, dx, dy, type, parentEvent, 0);
+    }
+
+    // Adds a particle of a given generation and returns its slot
+    public int add(double x, double y, double dx, double dy, ParticleType type, int parentEvent, int generation) {
+        if (size == this.x.length) {
+            grow(size * 2);
+        }
+        int i = size++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.type[i] = (byte) type.ordinal();
+        this.framesSinceChange[i] = Particle.FRAME_COOLDOWN - ticks;
+        counts[type.ordinal()]++;
+        if (moving) {
+            this.dx[i] = dx;
+            this.dy[i] = dy;
+            this.parentEvent[i] = parentEvent;
+            this.generation[i] = generation;
+            this.weight[i] = 1;
+            this.spread[i] = 1;
+        }
+        return i;
+    }
+
+    // Adds a particle moving at its type's default speed in direction theta
+    public int add(double x, double y, double theta, ParticleType type, int parentEvent) {
+        return add(x, y, Math.cos(theta) * type.getDefaultSpeed(), Math.sin(theta) * type.getDefaultSpeed(), type, parentEvent);
+    }
+
+    // Adds a copy of the moving particle in slot i and returns its slot
+    public int copy(int i) {
+        int k = add(x[i], y[i], dx[i], dy[i], getType(i), parentEvent[i], generation[i]);
+        framesSinceChange[k] = framesSinceChange[i];
+        weight[k] = weight[i];
+        spread[k] = spread[i];
+        return k;
+    }
+
+    // Removes the particle in slot i by moving the last particle into it
+    public void remove(int i) {
+        counts[type[i]]--;
+        int last = --size;
+        if (i != last) {
+            x[i] = x[last];
+            y[i] = y[last];
+            type[i] = type[last];
+            framesSinceChange[i] = framesSinceChange[last];
+            if (moving) {
+                dx[i] = dx[last];
+                dy[i] = dy[last];
+                parentEvent[i] = parentEvent[last];
+                generation[i] = generation[last];
+                weight[i] = weight[last];
+                spread[i] = spread[last];
+            }
+        }
+    }
+
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        type = Arrays.copyOf(type, capacity);
+        framesSinceChange = Arrays.copyOf(framesSinceChange, capacity);
+        if (moving) {
+            dx = Arrays.copyOf(dx, capacity);
+            dy = Arrays.copyOf(dy, capacity);
+            parentEvent = Arrays.copyOf(parentEvent, capacity);
+            generation = Arrays.copyOf(generation, capacity);
+            weight = Arrays.copyOf(weight, capacity);
+            spread = Arrays.copyOf(spread, capacity);
+        }
+    }
+
+    public ParticleType getType(int i) {
+        return TYPES[type[i]];
+    }
+
+    public void setType(int i, ParticleType type) {
+        if (changes != null) {
+            if (changeCount < changes.length) {
+                changes[changeCount++] = i;
+            } else {
+                changesOverflowed = true;
+            }
+        }
+        counts[this.type[i]]--;
+        counts[type.ordinal()]++;
+        this.type[i] = (byte) type.ordinal();
+        this.framesSinceChange[i] = -ticks;
+    }
+
+    public int getFramesSinceChange(int i) {
+        return framesSinceChange[i] + ticks;
+    }
+
+    // Records the slots passed to setType(), up to capacity of them between clears.
+    // A capacity of 0 turns tracking off.
+    public void trackChanges(int capacity) {
+        changes = capacity > 0 ? new int[capacity] : null;
+        clearChanges();
+    }
+
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    public int getChange(int k) {
+        return changes[k];
+    }
+
+    // Whether more slots changed than could be recorded, so every slot should be treated as changed
+    public boolean haveChangesOverflowed() {
+        return changesOverflowed;
+    }
+
+    public void clearChanges() {
+        changeCount = 0;
+        changesOverflowed = false;
+    }
+
+    // Writes the live particles as one packed array per field. Stationary stores (the fuel)
+    // leave out the velocities, lineage, weights and spreads, which they do not have.
+    public void write(Checkpoint out) throws IOException {
+        out.putInt(size);
+        out.putInt(ticks);
+        out.putBoolean(moving);
+        out.putDoubles(x, size);
+        out.putDoubles(y, size);
+        out.putBytes(type, size);
+        out.putInts(framesSinceChange, size);
+        if (moving) {
+            out.putDoubles(dx, size);
+            out.putDoubles(dy, size);
+            out.putInts(parentEvent, size);
+            out.putInts(generation, size);
+            out.putDoubles(weight, size);
+            out.putInts(spread, size);
+        }
+    }
+
+    // Replaces the contents with particles saved by write()
+    public void read(Checkpoint in) throws IOException {
+        int n = in.getCount();
+        ticks = in.getInt();
+        if (in.getBoolean() != moving) {
+            throw new IOException("Corrupt checkpoint, " + (moving ? "stationary" : "moving") + " particles where " + (moving ? "moving" : "stationary") + " ones belong");
+        }
+        if (x.length < n) {
+            grow(n);
+        }
+        in.getDoubles(x, n);
+        in.getDoubles(y, n);
+        in.getBytes(type, n);
+        in.getInts(framesSinceChange, n);
+        if (moving) {
+            in.getDoubles(dx, n);
+            in.getDoubles(dy, n);
+            in.getInts(parentEvent, n);
+            in.getInts(generation, n);
+            in.getDoubles(weight, n);
+            in.getInts(spread, n);
+        }
+
+        size = n;
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < n; i++) {
+            if (type[i] < 0 || type[i] >= TYPES.length) {
+                throw new IOException("Corrupt checkpoint, bad particle type " + type[i]);
+            }
+            counts[type[i]]++;
+        }
+        clearChanges();
+        changesOverflowed = changes != null; // Every slot may have changed
+    }
+
+    // Real particles the live ones stand for
+    public double getTotalWeight() {
+        if (!moving) {
+            return size;
+        }
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += weight[i];
+        }
+        return total;
+    }
+
+    public double getRadius(int i) {
+        return TYPES[type[i]].getRadius();
+    }
+
+    public void tick(int i) {
+        framesSinceChange[i]++;
+    }
+
+    // Ticks every particle at once
+    public void tickAll() {
+        ticks++;
+    }
+
+    public void move(int i) {
+        x[i] += dx[i];
+        y[i] += dy[i];
+    }
+
+    public void bounceBounds(int i, double minX, double maxX, double minY, double maxY) {
+        if (x[i] < minX) {
+            dx[i] = -dx[i];
+            x[i] = minX;
+        } else if (x[i] > maxX) {
+            dx[i] = -dx[i];
+            x[i] = maxX;
+        }
+        if (y[i] < minY) {
+            dy[i] = -dy[i];
+            y[i] = minY;
+        } else if (y[i] > maxY) {
+            dy[i] = -dy[i];
+            y[i] = maxY;
+        }
+    }
+}
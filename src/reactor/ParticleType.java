@@ -1,3 +1,5 @@
+package reactor;
+
 import java.awt.Color;
 
 public enum ParticleType {
@@ -0,0 +1,102 @@
+package reactor;
+
+// Seeded random numbers for the reactor. Every consumer draws from its own stream, derived
+// from the seed and a stream id, so streams never share state and a seed reproduces a run.
+//
+// There are two ways to draw:
+//  - uniform(stream, frame, key) is a pure function of its arguments, for kernels that run on
+//    several threads and must not depend on which thread handles which particle.
+//  - stream(id) and keyed(id, frame, key) return a RandomStream, a sequential generator owned
+//    by one thread. keyed() reseeds an existing stream in place, so it allocates nothing.
+public class RandomSource {
+
+    private static final double PI2 = Math.PI * 2;
+
+    private final long seed;
+
+    public RandomSource(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // A new independent sequential stream
+    public RandomStream stream(long id) {
+        return new RandomStream(mix(seed ^ (id * 0x165667B19E3779F9L)));
+    }
+
+    // Reseeds the given stream to the sub-stream for (id, frame, key) and returns it
+    public RandomStream keyed(RandomStream stream, long id, long frame, long key) {
+        stream.state = hash(id, frame, key);
+        return stream;
+    }
+
+    // A uniform double in [0, 1) that depends only on the seed and the arguments
+    public double uniform(long id, long frame, long key) {
+        return toDouble(mix(hash(id, frame, key)));
+    }
+
+    private long hash(long id, long frame, long key) {
+        return seed ^ (frame * 0x9E3779B97F4A7C15L) ^ (key * 0xC2B2AE3D27D4EB4FL) ^ (id * 0x165667B19E3779F9L);
+    }
+
+    // The SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double toDouble(long bits) {
+        return (bits >>> 11) * 0x1.0p-53;
+    }
+
+    // A SplitMix64 generator. Not thread safe: each thread keeps its own.
+    public static class RandomStream {
+
+        private long state;
+
+        RandomStream(long state) {
+            this.state = state;
+        }
+
+        // The whole state of the stream, for checkpoints
+        long getState() {
+            return state;
+        }
+
+        void setState(long state) {
+            this.state = state;
+        }
+
+        public long nextLong() {
+            state += 0x9E3779B97F4A7C15L;
+            return mix(state);
+        }
+
+        public double nextDouble() {
+            return toDouble(nextLong());
+        }
+
+        public double nextAngle() {
+            return nextDouble() * PI2;
+        }
+
+        // Fills cos[0 .. n) and sin[0 .. n) with the components of uniformly random directions.
+        // Uses the polar method (a point in the unit disc, doubled in angle), so no trig calls.
+        public void nextDirections(double[] cos, double[] sin, int n) {
+            for (int i = 0; i < n; i++) {
+                double u, v, s;
+                do {
+                    u = nextDouble() * 2 - 1;
+                    v = nextDouble() * 2 - 1;
+                    s = u * u + v * v;
+                } while (s >= 1 || s == 0);
+                cos[i] = (u * u - v * v) / s;
+                sin[i] = 2 * u * v / s;
+            }
+        }
+    }
+}
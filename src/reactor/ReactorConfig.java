@@ -0,0 +1,118 @@
+package reactor;
+
+import java.io.IOException;
+
+// The tunable parameters of one reactor. An engine copies its config when it is built, so one
+// config can be changed and reused for the next engine of a sweep.
+public class ReactorConfig {
+
+    // Names accepted by set() and get()
+    public static final String[] PARAMETERS = {
+            "neutronDecayProb", "depletedToUraniumProb", "depletedToGraphiteProb", "idleTempMul",
+            "moderatorSpeedMul", "moderatorMinSpeed", "fuelCount", "spacing", "uraniumChance", "neutronBudget" };
+
+    // Physics
+    public double neutronDecayProb = 0.01; // Probability for a neutron to decay and increase ambient temperature
+    public double depletedToUraniumProb = 0.01; // Probability for a depleted particle to turn back to uranium (simulate refueling)
+    public double depletedToGraphiteProb = 0.005; // Probability for a depleted particle to turn to graphite
+    public double idleTempMul = 0.98; // The temperature gets multiplied by this every frame
+    public double moderatorSpeedMul = 0.8; // A neutron's speed gets multiplied by this when it bounces off a moderator block
+    public double moderatorMinSpeed = 1; // Moderator blocks do not slow neutrons below this speed
+
+    // The initial fuel lattice
+    public int fuelCount = 100;
+    public double spacing = 50;
+    public double uraniumChance = 0.3; // Chance for each lattice site to start as uranium instead of depleted
+
+    // Neutrons simulated before they are merged into weighted ones, which bounds the cost of a
+    // supercritical run. 0 simulates every neutron.
+    public int neutronBudget = 0;
+
+    public ReactorConfig() {
+    }
+
+    public ReactorConfig(ReactorConfig other) {
+        this.neutronDecayProb = other.neutronDecayProb;
+        this.depletedToUraniumProb = other.depletedToUraniumProb;
+        this.depletedToGraphiteProb = other.depletedToGraphiteProb;
+        this.idleTempMul = other.idleTempMul;
+        this.moderatorSpeedMul = other.moderatorSpeedMul;
+        this.moderatorMinSpeed = other.moderatorMinSpeed;
+        this.fuelCount = other.fuelCount;
+        this.spacing = other.spacing;
+        this.uraniumChance = other.uraniumChance;
+        this.neutronBudget = other.neutronBudget;
+    }
+
+    // Chance a depleted particle changes at all in a frame
+    public double getDepletedTransitionProb() {
+        return depletedToUraniumProb + (1 - depletedToUraniumProb) * depletedToGraphiteProb;
+    }
+
+    // Sets a parameter by its name in PARAMETERS. Probabilities must be between 0 and 1.
+    public void set(String name, double value) {
+        if (isProbability(name) && !(value >= 0 && value <= 1)) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1: " + value);
+        }
+        switch (name) {
+            case "neutronDecayProb": neutronDecayProb = value; break;
+            case "depletedToUraniumProb": depletedToUraniumProb = value; break;
+            case "depletedToGraphiteProb": depletedToGraphiteProb = value; break;
+            case "idleTempMul": idleTempMul = value; break;
+            case "fuelCount": fuelCount = (int) value; break;
+            case "spacing": spacing = value; break;
+            case "uraniumChance": uraniumChance = value; break;
+            case "moderatorSpeedMul": moderatorSpeedMul = value; break;
+            case "moderatorMinSpeed": moderatorMinSpeed = value; break;
+            case "neutronBudget": neutronBudget = (int) value; break;
+            default: throw new IllegalArgumentException("Unknown reactor parameter: " + name);
+        }
+    }
+
+    private static boolean isProbability(String name) {
+        return name.equals("neutronDecayProb") || name.equals("depletedToUraniumProb") || name.equals("depletedToGraphiteProb")
+                || name.equals("uraniumChance");
+    }
+
+    public double get(String name) {
+        switch (name) {
+            case "neutronDecayProb": return neutronDecayProb;
+            case "depletedToUraniumProb": return depletedToUraniumProb;
+            case "depletedToGraphiteProb": return depletedToGraphiteProb;
+            case "idleTempMul": return idleTempMul;
+            case "fuelCount": return fuelCount;
+            case "spacing": return spacing;
+            case "uraniumChance": return uraniumChance;
+            case "moderatorSpeedMul": return moderatorSpeedMul;
+            case "moderatorMinSpeed": return moderatorMinSpeed;
+            case "neutronBudget": return neutronBudget;
+            default: throw new IllegalArgumentException("Unknown reactor parameter: " + name);
+        }
+    }
+
+    public void write(Checkpoint out) throws IOException {
+        out.putDouble(neutronDecayProb);
+        out.putDouble(depletedToUraniumProb);
+        out.putDouble(depletedToGraphiteProb);
+        out.putDouble(idleTempMul);
+        out.putInt(fuelCount);
+        out.putDouble(spacing);
+        out.putDouble(uraniumChance);
+        out.putDouble(moderatorSpeedMul);
+        out.putDouble(moderatorMinSpeed);
+        out.putInt(neutronBudget);
+    }
+
+    public void read(Checkpoint in) throws IOException {
+        neutronDecayProb = in.getDouble();
+        depletedToUraniumProb = in.getDouble();
+        depletedToGraphiteProb = in.getDouble();
+        idleTempMul = in.getDouble();
+        fuelCount = in.getInt();
+        spacing = in.getDouble();
+        uraniumChance = in.getDouble();
+        moderatorSpeedMul = in.getDouble();
+        moderatorMinSpeed = in.getDouble();
+        neutronBudget = in.getInt();
+    }
+}
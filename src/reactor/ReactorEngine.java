@@ -0,0 +1,911 @@
+package reactor;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// The reactor physics, free of any Swing code. A frame is advanced with step(), so the
+// engine can be driven by the GUI timer or run headless as fast as the CPU allows.
+public class ReactorEngine {
+
+    // Kept for existing callers; the inner loops use Collisions directly
+    public static boolean closeColliding(Particle a, Particle b) {
+        return Collisions.overlaps(a, b);
+    }
+
+    // Same as closeColliding(Particle, Particle), for particles held in stores
+    public static boolean closeColliding(ParticleStore a, int i, ParticleStore b, int j) {
+        return Collisions.overlaps(a, i, b, j);
+    }
+
+    // Determines collision and direction, as one of the strings from Collisions.describe()
+    public static String checkCollision(double circleX, double circleY, double radius, double rectX, double rectY, double rectWidth, double rectHeight) {
+        return Collisions.describe(Collisions.hitSide(circleX, circleY, radius, rectX, rectY, rectWidth, rectHeight));
+    }
+
+    // Simulation objects
+    private ParticleStore neutrons;
+    private ParticleStore fuels;
+    private ArrayList<Rectangle> graphiteBlocks; // Moderator blocks, fixed once the reactor runs
+    private ModeratorTree moderators; // Index over graphiteBlocks
+    private FuelGrid fuelGrid; // Spatial index and chunks over fuels, built once since they never move
+
+    // Simulation variables
+    private double temperature;
+    private double energyOutput;
+    private int screenWidth;
+    private int screenHeight;
+    private long frame;
+    private boolean fissioned; // Whether the last step had a collision (used for the geiger click)
+    private RandomSource random;
+    private RandomSource.RandomStream initRandom; // Initial grid and stray neutrons
+    private RandomSource.RandomStream degradationRandom; // Fuel transitions
+    private RandomSource.RandomStream emissionRandom; // Rekeyed for every fission
+    private RandomSource.RandomStream mergeRandom; // Rekeyed for every frame that merges neutrons
+    private double[] emissionCos = new double[3];
+    private double[] emissionSin = new double[3];
+
+    // Neutron stepping
+    private boolean parallel; // Split the neutron phase across threads
+    private int parallelThreshold = PARALLEL_THRESHOLD; // Neutrons per parallel task
+    private long parallelFrames; // Frames whose neutron passes were split across the pool
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int[] claims = new int[64]; // Per neutron slot: the fuel it hit, NO_CLAIM or DECAYED
+    private NeutronKernels kernels = NeutronKernels.scalar(); // Movement and distance arithmetic
+    private long[] mergeKeys = new long[64]; // Bucket and slot of each neutron, sorted to find merge partners
+
+    // Tunable parameters, copied from the config the engine was built with
+    private ReactorConfig config;
+    private double depletedTransitionProb; // Chance a depleted particle changes at all in a frame
+    private double logNoTransition; // log(1 - depletedTransitionProb)
+
+    // Fuel degradation
+    private boolean eventDriven; // Schedule depleted transitions instead of rolling for every fuel each frame
+    private FrameEventQueue transitions = new FrameEventQueue(); // Due frame and index of each depleted fuel
+
+    // Running stats over the last STATS_WINDOW frames
+    private RollingStats neutronStats = new RollingStats(STATS_WINDOW);
+    private RollingStats temperatureStats = new RollingStats(STATS_WINDOW);
+    private RollingStats powerStats = new RollingStats(STATS_WINDOW); // Energy output per frame
+    private LineageLog lineage = new LineageLog(LINEAGE_EXPIRY_FRAMES); // Recent fissions and per-generation counts
+
+    // Instrumentation
+    private final ReactorMetrics metrics = new ReactorMetrics(); // Phase times and counters, always on
+
+    // Logging
+    private LogManager logManager;
+    private int logInterval = DATA_LOG_PAUSE;
+    private int framesSinceLog = DATA_LOG_PAUSE;
+
+    // CONSTANTS
+    private static final int NO_CLAIM = -1;
+    private static final int DECAYED = -2;
+    private static final int SPENT = -3; // Reacted, removed at the end of the frame
+    private static final int PARALLEL_THRESHOLD = 2048; // Default neutrons per parallel task
+    private static final long STREAM_INIT = 0;
+    private static final long STREAM_DEGRADATION = 1;
+    private static final long STREAM_DECAY = 2;
+    private static final long STREAM_EMISSION = 3;
+    private static final long STREAM_MERGE = 5;
+    private static final int STATS_WINDOW = 60;
+    private static final int LINEAGE_EXPIRY_FRAMES = 180; // Frames a fission stays in the lineage, as long as its chain reaction line is drawn
+    public static final int DATA_LOG_PAUSE = 10; // Default number of frames between each collection of data
+    private static final int DISCARDED_INIT_DRAWS = 10 * 10 * 3; // Neutrons, attempts each, draws each
+    private static final double MERGE_TARGET = 0.75; // Of the neutron budget, what merging brings the neutrons down to
+    private static final double SPLIT_BELOW = 0.25; // Of the budget, below which heavy neutrons are split
+    private static final double SPLIT_TARGET = 0.5; // Of the budget, what splitting brings the neutrons up to
+    private static final int SPREAD_PLACES = 32; // Places a weighted neutron's spread has, one bit each, out to about three lattice sites away
+    private static final int MERGE_CELLS = 4096; // Most merge cells across the world, so a bucket fits in 31 bits
+
+    // The places around a weighted neutron that the ones it stands for can be at, in lattice
+    // spacings from it: a sunflower spiral with one place per lattice site of area, nearest
+    // first, so the spread looks much the same from any site. Each neutron keeps its place from
+    // frame to frame, as a lone neutron would, until it reacts.
+    private static final double[] SPREAD_X = new double[SPREAD_PLACES];
+    private static final double[] SPREAD_Y = new double[SPREAD_PLACES];
+
+    static {
+        double turn = Math.PI * (3 - Math.sqrt(5)); // The golden angle
+        for (int k = 0; k < SPREAD_PLACES; k++) {
+            double r = Math.sqrt(k / Math.PI);
+            SPREAD_X[k] = r * Math.cos(k * turn);
+            SPREAD_Y[k] = r * Math.sin(k * turn);
+        }
+    }
+
+    public ReactorEngine(int w, int h) {
+        this(w, h, System.nanoTime());
+    }
+
+    // Two engines with the same seed produce the same run, in either stepping mode
+    public ReactorEngine(int w, int h, long seed) {
+        this(w, h, seed, new ReactorConfig());
+    }
+
+    // A reactor with a custom fuel lattice, centered in the w by h world
+    public ReactorEngine(int w, int h, long seed, int fuelCount, double spacing, double uraniumChance) {
+        this(w, h, seed, lattice(fuelCount, spacing, uraniumChance));
+    }
+
+    // A reactor with the given parameters and fuel lattice. The world grows past w by h if the
+    // lattice needs it, leaving a margin of one spacing around it.
+    public ReactorEngine(int w, int h, long seed, ReactorConfig config) {
+        this(Math.max(w, latticeExtent(latticeColumns(config.fuelCount), config.spacing)),
+                Math.max(h, latticeExtent(latticeRows(config.fuelCount), config.spacing)),
+                new RandomSource(seed), config);
+
+        // The original reactor tried to place stray neutrons here and never kept them. Skip the
+        // draws it made (a position and an angle for each of its attempts) so that seeds still
+        // lay out the same grid.
+        for (int i = 0; i < DISCARDED_INIT_DRAWS; i++) {
+            initRandom.nextLong();
+        }
+
+        // Create a grid of uranium particles
+        initializeParticleGrid(this.config.fuelCount, this.config.spacing, this.config.uraniumChance);
+    }
+
+    // The lattice is as square as possible, filled row by row
+    private static int latticeColumns(int fuelCount) {
+        return (int) Math.ceil(Math.sqrt(fuelCount));
+    }
+
+    private static int latticeRows(int fuelCount) {
+        int cols = latticeColumns(fuelCount);
+        return cols == 0 ? 0 : (int) Math.ceil(fuelCount / (double) cols);
+    }
+
+    private static int latticeExtent(int sites, double spacing) {
+        return (int) Math.ceil((sites + 1) * spacing);
+    }
+
+    private static ReactorConfig lattice(int fuelCount, double spacing, double uraniumChance) {
+        ReactorConfig config = new ReactorConfig();
+        config.fuelCount = fuelCount;
+        config.spacing = spacing;
+        config.uraniumChance = uraniumChance;
+        return config;
+    }
+
+    // An empty world, filled in by the public constructors or by loadCheckpoint
+    private ReactorEngine(int w, int h, RandomSource random, ReactorConfig config) {
+
+        // Set up the world
+        this.screenWidth = w;
+        this.screenHeight = h;
+        reseed(random);
+        configure(config);
+
+        // Create the particle lists
+        neutrons = new ParticleStore();
+        fuels = new ParticleStore(this.config.fuelCount, false);
+        graphiteBlocks = new ArrayList<Rectangle>();
+        moderators = new ModeratorTree(graphiteBlocks);
+    }
+
+    private void configure(ReactorConfig config) {
+        this.config = new ReactorConfig(config);
+        this.depletedTransitionProb = config.getDepletedTransitionProb();
+        this.logNoTransition = Math.log1p(-depletedTransitionProb);
+    }
+
+    private void reseed(RandomSource random) {
+        this.random = random;
+        this.initRandom = random.stream(STREAM_INIT);
+        this.degradationRandom = random.stream(STREAM_DEGRADATION);
+        this.emissionRandom = random.stream(STREAM_EMISSION);
+        this.mergeRandom = random.stream(STREAM_MERGE);
+    }
+
+    // Scatters neutrons uniformly over the world outside the moderator blocks, moving in random
+    // directions. A neutron that lands in a block ten times in a row is not added.
+    public void addStrayNeutrons(int count) {
+        double radius = ParticleType.NEUTRON.getRadius();
+        for (int i = 0; i < count; i++) {
+            for (int attempts = 0; attempts < 10; attempts++) {
+                double x = initRandom.nextDouble() * screenWidth;
+                double y = initRandom.nextDouble() * screenHeight;
+                double theta = initRandom.nextAngle();
+                if (moderators.findHit(x, y, radius) == -1) {
+                    neutrons.add(x, y, theta, ParticleType.NEUTRON, -1);
+                    lineage.recordBirth();
+                    break;
+                }
+            }
+        }
+    }
+
+    // Replaces the moderator blocks. Neutrons bounce off them, slowing down on every hit.
+    public void setModerators(List<Rectangle> blocks) {
+        graphiteBlocks = new ArrayList<Rectangle>();
+        for (Rectangle block : blocks) {
+            graphiteBlocks.add(new Rectangle(block));
+        }
+        moderators = new ModeratorTree(graphiteBlocks);
+    }
+
+    private void initializeParticleGrid(int numParticles, double spacing, double uraniumChance) {
+        // Calculate grid dimensions to make it as square as possible
+        int cols = latticeColumns(numParticles);
+        int rows = latticeRows(numParticles);
+
+        // Calculate starting position to center the grid
+        double startX = (screenWidth - (cols - 1) * spacing) / 2;
+        double startY = (screenHeight - (rows - 1) * spacing) / 2;
+
+        // The sites are the first numParticles of the lattice row by row, but they are stored
+        // chunk by chunk (in the order of the fuel grid, one site per cell) so every chunk's
+        // fuel is a contiguous range of slots. A lattice that fits in one chunk is stored
+        // row by row.
+        int chunk = FuelGrid.CHUNK_CELLS;
+        for (int chunkRow = 0; chunkRow < rows; chunkRow += chunk) {
+            for (int chunkCol = 0; chunkCol < cols; chunkCol += chunk) {
+                for (int row = chunkRow; row < Math.min(rows, chunkRow + chunk); row++) {
+                    for (int col = chunkCol; col < Math.min(cols, chunkCol + chunk); col++) {
+                        if ((long) row * cols + col >= numParticles) {
+                            break;
+                        }
+
+                        // Add fuel particle
+                        double x = startX + col * spacing;
+                        double y = startY + row * spacing;
+
+                        ParticleType type = initRandom.nextDouble() < uraniumChance ? ParticleType.URANIUM : ParticleType.DEPLETED;
+                        fuels.add(x, y, 0, 0, type, -1);
+                    }
+                }
+            }
+        }
+
+        // Index the fuel for collision lookups
+        fuelGrid = buildFuelGrid();
+    }
+
+    // One lattice site per cell. Collision lookups search the cells within reach whatever
+    // their size, so the size only decides how the fuel is bucketed.
+    private FuelGrid buildFuelGrid() {
+        return new FuelGrid(fuels, config.spacing > 0 ? config.spacing : FuelGrid.maxRadius());
+    }
+
+    // Changes the type of a fuel particle, keeping the chunk counts in step
+    private void setFuelType(int i, ParticleType type) {
+        fuelGrid.typeChanged(i, fuels.getType(i), type);
+        fuels.setType(i, type);
+    }
+
+    // Sends a record to the log manager every logInterval frames
+    public void setLogManager(LogManager logManager) {
+        this.logManager = logManager;
+    }
+
+    // How many frames between each record, 0 logs every frame
+    public void setLogInterval(int logInterval) {
+        this.logInterval = logInterval;
+        this.framesSinceLog = logInterval;
+    }
+
+    // Advances the reactor by one frame
+    public void step() {
+        long start = metrics.beginStep();
+
+        // Decrease the temperature
+        double temperatureChange = temperature * (1 - config.idleTempMul);
+        temperature -= temperatureChange;
+        energyOutput += temperatureChange;
+
+        if (logManager != null) {
+            if (framesSinceLog >= logInterval) {
+                framesSinceLog = 0;
+                logManager.record(temperatureChange, temperature, energyOutput, (int) Math.round(getNeutronPopulation()),
+                        countFuel(ParticleType.DEPLETED), countFuel(ParticleType.URANIUM), countFuel(ParticleType.GRAPHITE));
+            } else {
+                framesSinceLog++;
+            }
+        }
+
+        long t = metrics.lap(ReactorMetrics.LOGGING, start);
+
+        // Simulate
+        simulateDegradation();
+        t = metrics.lap(ReactorMetrics.DEGRADATION, t);
+        simulateChemicalReactions(t);
+        frame++;
+
+        // Update the running stats
+        neutronStats.add(getNeutronPopulation());
+        temperatureStats.add(temperature);
+        powerStats.add(temperatureChange);
+        metrics.endStep(start, this);
+    }
+
+    // Advances the reactor by several frames, without any pause between them
+    public void run(long nFrames) {
+        for (long i = 0; i < nFrames; i++) {
+            step();
+        }
+    }
+
+    private void simulateDegradation() {
+        fuels.tickAll();
+
+        // Only the depleted particles whose transition is due this frame
+        if (eventDriven) {
+            while (transitions.hasDue(frame)) {
+                int i = transitions.poll();
+                if (degradationRandom.nextDouble() * depletedTransitionProb < config.depletedToUraniumProb) {
+                    setFuelType(i, ParticleType.URANIUM);
+                } else {
+                    setFuelType(i, ParticleType.GRAPHITE);
+                    neutrons.add(fuels.x[i], fuels.y[i], degradationRandom.nextAngle(), ParticleType.NEUTRON, -1);
+                    lineage.recordBirth();
+                }
+            }
+            return;
+        }
+
+        // Only depleted fuel can change, so the dormant chunks (the ones without any) are
+        // skipped. The others are visited in slot order, like a scan over all of the fuel.
+        if (fuelGrid.isInSlotOrder()) {
+            for (int c = 0; c < fuelGrid.getChunkCount(); c++) {
+                if (fuelGrid.getDepletedCount(c) > 0) {
+                    degradeFuel(fuelGrid.getChunkStart(c), fuelGrid.getChunkEnd(c));
+                }
+            }
+        } else {
+            degradeFuel(0, fuels.size());
+        }
+    }
+
+    // Handle fuel transitions in slots [from, to)
+    private void degradeFuel(int from, int to) {
+        for (int i = from; i < to; i++) {
+
+            // Chance to turn Depleted to Uranium
+            if (fuels.getType(i) == ParticleType.DEPLETED && degradationRandom.nextDouble() < config.depletedToUraniumProb) {
+                setFuelType(i, ParticleType.URANIUM);
+            }
+
+            // Chance to turn Depleted to Graphite
+            else if (fuels.getType(i) == ParticleType.DEPLETED && degradationRandom.nextDouble() < config.depletedToGraphiteProb) {
+                setFuelType(i, ParticleType.GRAPHITE);
+                neutrons.add(fuels.x[i], fuels.y[i], degradationRandom.nextAngle(), ParticleType.NEUTRON, -1);
+                lineage.recordBirth();
+            }
+        }
+    }
+
+    // Schedules the next transition of a fuel that just became depleted. Each degradation pass
+    // from firstFrame on would give it a depletedTransitionProb chance, so the wait until the
+    // pass that fires is geometric and can be drawn in one go. Depleted fuel that can never
+    // change, or not before the last frame the queue holds, is not scheduled at all.
+    private void scheduleTransition(int i, long firstFrame) {
+        if (depletedTransitionProb == 0) {
+            return;
+        }
+        double u = degradationRandom.nextDouble();
+        double wait = Math.floor(Math.log1p(-u) / logNoTransition);
+        if (wait <= Integer.MAX_VALUE - firstFrame) {
+            transitions.add(firstFrame + (long) wait, i);
+        }
+    }
+
+    // Switches between scanning every fuel each frame and only visiting the fuel whose
+    // transition is due. Both give the same distribution of transitions.
+    public void setEventDrivenDegradation(boolean eventDriven) {
+        if (eventDriven == this.eventDriven) {
+            return;
+        }
+        this.eventDriven = eventDriven;
+        transitions.clear();
+        if (eventDriven) {
+            for (int i = 0; i < fuels.size(); i++) {
+                if (fuels.getType(i) == ParticleType.DEPLETED) {
+                    scheduleTransition(i, frame);
+                }
+            }
+        }
+    }
+
+    // The neutron phases, timed from t on
+    private void simulateChemicalReactions(long t) {
+        fissioned = false;
+
+        // Move every neutron, then find what it hit. Each neutron only touches its own slot and
+        // reads the fuel, so these passes can be split across threads.
+        int count = neutrons.size();
+        if (claims.length < count) {
+            claims = new int[Math.max(count, claims.length * 2)];
+        }
+        if (parallel && count >= parallelThreshold) {
+            parallelFrames++;
+            pool.invoke(new NeutronTask(this, 0, count, false));
+            t = metrics.lap(ReactorMetrics.TRANSPORT, t);
+            pool.invoke(new NeutronTask(this, 0, count, true));
+        } else {
+            transportNeutrons(0, count);
+            t = metrics.lap(ReactorMetrics.TRANSPORT, t);
+            collideNeutrons(0, count);
+        }
+        t = metrics.lap(ReactorMetrics.COLLISION, t);
+
+        // Resolve the claims in slot order, so the first claimant wins each fuel particle.
+        // A fuel that already reacted this frame is cooling down, so later claimants miss it.
+        // A weighted neutron decays all at once, heating the reactor for every neutron it stands for.
+        for (int i = 0; i < count; i++) {
+            int j = claims[i];
+            if (j == DECAYED) {
+                temperature += ParticleType.NEUTRON.getTemperatureIncrease() * neutrons.weight[i];
+                lineage.recordEnd(neutrons.generation[i], neutrons.weight[i]);
+                metrics.countDecay();
+                continue;
+            }
+            int spread = neutrons.spread[i];
+            if (j == NO_CLAIM && spread == 1) {
+                continue;
+            }
+
+            // A weighted neutron stands for neutrons spread around it, at the places in its
+            // spread, and each of them reacts with the fuel it is over like a lone neutron. Past
+            // SPREAD_PLACES they share the places, and only one of them reacts with each site.
+            // The ones that find nothing to react with carry on, where they are.
+            double weight = neutrons.weight[i];
+            int reacted = 0;
+            for (int places = spread; places != 0; places &= places - 1) {
+                int k = Integer.numberOfTrailingZeros(places);
+                double x = neutrons.x[i];
+                double y = neutrons.y[i];
+                int site = j;
+                if (k > 0) {
+                    if (neutrons.getFramesSinceChange(i) < Particle.FRAME_COOLDOWN) {
+                        break;
+                    }
+                    x += SPREAD_X[k] * config.spacing;
+                    y += SPREAD_Y[k] * config.spacing;
+                    site = fuelGrid.findCollision(x, y, kernels);
+                }
+
+                // A fuel that already reacted this frame is cooling down, so it is passed over
+                if (site == NO_CLAIM || fuels.getFramesSinceChange(site) < Particle.FRAME_COOLDOWN) {
+                    continue;
+                }
+                reacted |= 1 << k;
+                fissioned = true;
+
+                // Collide with uranium
+                if (fuels.getType(site) == ParticleType.URANIUM) {
+                    metrics.countFission();
+
+                    // Create three new neutrons, remembering the fission they came from. The directions
+                    // come from a stream keyed by the fuel, which only one neutron can split per frame.
+                    random.keyed(emissionRandom, STREAM_EMISSION, frame, site).nextDirections(emissionCos, emissionSin, 3);
+                    double speed = ParticleType.NEUTRON.getDefaultSpeed();
+                    int generation = neutrons.generation[i];
+                    int event = lineage.recordFission(frame, fuels.x[site], fuels.y[site], generation, 1);
+                    for (int c = 0; c < 3; c++) {
+                        neutrons.add(x, y, emissionCos[c] * speed, emissionSin[c] * speed, ParticleType.NEUTRON,
+                                event, LineageLog.childGeneration(generation));
+                    }
+                }
+
+                // Collide with graphite
+                else {
+                    lineage.recordEnd(neutrons.generation[i], 1);
+                    metrics.countAbsorption();
+                }
+
+                depleteHitFuel(site);
+            }
+
+            // The rest carries on
+            int reactions = Integer.bitCount(reacted);
+            if (weight > reactions) {
+                neutrons.weight[i] = weight - reactions;
+                neutrons.spread[i] = fillSpread(spread & ~reacted, neutrons.weight[i]);
+                claims[i] = NO_CLAIM;
+            } else {
+                claims[i] = SPENT;
+            }
+        }
+
+        // Remove the decayed and absorbed neutrons, from the top down so the result is the same
+        // no matter how the work was split
+        for (int i = count - 1; i >= 0; i--) {
+            if (claims[i] != NO_CLAIM) {
+                neutrons.remove(i);
+            }
+        }
+
+        // Keep the neutrons within the budget
+        if (config.neutronBudget > 0) {
+            if (neutrons.size() > config.neutronBudget) {
+                mergeNeutrons(Math.max(1, (int) (config.neutronBudget * MERGE_TARGET)));
+            } else if (neutrons.size() < config.neutronBudget * SPLIT_BELOW) {
+                splitNeutrons((int) (config.neutronBudget * SPLIT_TARGET));
+            }
+        }
+        metrics.lap(ReactorMetrics.SPAWN, t);
+    }
+
+    // The fuel is depleted once a neutron reacts with it, its next chance to change is in the next frame
+    private void depleteHitFuel(int j) {
+        setFuelType(j, ParticleType.DEPLETED);
+        if (eventDriven) {
+            scheduleTransition(j, frame + 1);
+        }
+    }
+
+    // Makes neutron i stand for weight neutrons, at the places nearest it
+    void setNeutronWeight(int i, double weight) {
+        neutrons.weight[i] = weight;
+        neutrons.spread[i] = fillSpread(0, weight);
+    }
+
+    // The spread of a neutron of this weight: the places in spread, with the nearest free ones
+    // added or the furthest dropped until there is one per neutron, or every place once there
+    // are more neutrons than places
+    private static int fillSpread(int spread, double weight) {
+        int places = (int) Math.min(weight, SPREAD_PLACES);
+        while (Integer.bitCount(spread) < places) {
+            spread |= Integer.lowestOneBit(~spread);
+        }
+        while (Integer.bitCount(spread) > places) {
+            spread &= ~Integer.highestOneBit(spread);
+        }
+        return spread;
+    }
+
+    // Merges neutrons that are in the same cell and head the same way (within an eighth of a
+    // turn) until there are target left. Each pair becomes one of the two, picked with a chance
+    // in proportion to its weight, standing for both, so on average every place and direction
+    // keeps its neutrons and the heat they will give off. Pairs that would weigh more than twice
+    // the mean weight left are not merged, so no neutron gathers far more than its neighbours.
+    // While that is not enough the cells double in size, until the last pass puts every
+    // neutron in one bucket and merges any pair.
+    private void mergeNeutrons(int target) {
+        RandomSource.RandomStream merges = random.keyed(mergeRandom, STREAM_MERGE, frame, 0);
+        double[] weight = neutrons.weight;
+        double maxWeight = 2 * neutrons.getTotalWeight() / target;
+        int world = Math.max(screenWidth, screenHeight);
+        double cellSize = Math.max(config.spacing, world / (double) MERGE_CELLS);
+        int count = neutrons.size();
+        if (mergeKeys.length < count) {
+            mergeKeys = new long[Math.max(count, mergeKeys.length * 2)];
+        }
+
+        // Sort the neutrons once by octant, then by cell along a Z-order curve, so the cells of
+        // every later pass, twice the size, are runs of the cells before them
+        int columns = (int) (world / cellSize) + 1;
+        for (int i = 0; i < count; i++) {
+            int col = Math.max(0, Math.min(columns - 1, (int) (neutrons.x[i] / cellSize)));
+            int row = Math.max(0, Math.min(columns - 1, (int) (neutrons.y[i] / cellSize)));
+            double dx = neutrons.dx[i];
+            double dy = neutrons.dy[i];
+            long octant = (dx < 0 ? 4 : 0) | (dy < 0 ? 2 : 0) | (Math.abs(dx) < Math.abs(dy) ? 1 : 0);
+            mergeKeys[i] = (octant << 26 | interleave(row) << 1 | interleave(col)) << 32 | i;
+        }
+        Arrays.sort(mergeKeys, 0, count);
+
+        // Merge neighbours in each bucket, leaving the one that goes at weight 0
+        int left = count;
+        for (int shift = 32; left > target; shift += 2) {
+            boolean lastPass = cellSize >= world;
+            int waiting = -1; // The sorted position of a neutron with no partner yet
+            for (int k = 0; k < count && left > target; k++) {
+                int b = (int) mergeKeys[k];
+                if (weight[b] == 0) {
+                    continue;
+                }
+                if (waiting == -1 || (!lastPass && mergeKeys[waiting] >>> shift != mergeKeys[k] >>> shift)) {
+                    waiting = k;
+                    continue;
+                }
+                int a = (int) mergeKeys[waiting];
+                double total = weight[a] + weight[b];
+                if (total > maxWeight && !lastPass) {
+                    waiting = k;
+                    continue;
+                }
+                int kept = merges.nextDouble() * total < weight[a] ? a : b;
+                int merged = a + b - kept;
+                if (neutrons.generation[merged] != neutrons.generation[kept]) {
+                    lineage.recordMerge(neutrons.generation[merged], neutrons.generation[kept], weight[merged]);
+                }
+                neutrons.spread[kept] = fillSpread(neutrons.spread[kept] | neutrons.spread[merged], total);
+                weight[merged] = 0;
+                weight[kept] = total;
+                left--;
+                waiting = -1;
+            }
+            cellSize *= 2;
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            if (weight[i] == 0) {
+                neutrons.remove(i);
+            }
+        }
+    }
+
+    // Spreads the low 13 bits of v to the even bits of the result
+    private static long interleave(int v) {
+        long z = v & 0x1FFF;
+        z = (z | z << 8) & 0x00FF00FFL;
+        z = (z | z << 4) & 0x0F0F0F0FL;
+        z = (z | z << 2) & 0x33333333L;
+        z = (z | z << 1) & 0x55555555L;
+        return z;
+    }
+
+    // Splits the neutrons standing for two or more in half, in slot order, until there are
+    // target. Every other place of the spread goes to the copy, which heads off in a direction
+    // of its own at the same speed, as the neutrons it stands for would drift apart from the
+    // others. The halves are the same generation and weigh what the one did, so the lineage is
+    // unchanged.
+    private void splitNeutrons(int target) {
+        RandomSource.RandomStream splits = random.keyed(mergeRandom, STREAM_MERGE, frame, 1);
+        int count = neutrons.size();
+        for (int i = 0; i < count && neutrons.size() < target; i++) {
+            double weight = neutrons.weight[i];
+            if (weight >= 2) {
+                int spread = neutrons.spread[i];
+                int copied = 0;
+                boolean second = false;
+                for (int places = spread; places != 0; places &= places - 1) {
+                    if (second) {
+                        copied |= Integer.lowestOneBit(places);
+                    }
+                    second = !second;
+                }
+                neutrons.weight[i] = Math.ceil(weight / 2);
+                neutrons.spread[i] = fillSpread(spread & ~copied, neutrons.weight[i]);
+                int k = neutrons.copy(i);
+                neutrons.weight[k] = weight - neutrons.weight[i];
+                neutrons.spread[k] = fillSpread(copied, neutrons.weight[k]);
+                double speed = Math.sqrt(neutrons.dx[k] * neutrons.dx[k] + neutrons.dy[k] * neutrons.dy[k]);
+                double theta = splits.nextAngle();
+                neutrons.dx[k] = Math.cos(theta) * speed;
+                neutrons.dy[k] = Math.sin(theta) * speed;
+            }
+        }
+    }
+
+    // Moves, ticks, decays and moderates the neutrons in slots [from, to)
+    private void transportNeutrons(int from, int to) {
+
+        // Move the neutrons in bulk. The ones that decay below move too, which changes
+        // nothing since they are removed at the end of the frame.
+        kernels.moveAndBounce(neutrons, from, to, screenWidth, screenHeight);
+
+        for (int i = from; i < to; i++) {
+
+            // Simulate the neutron
+            neutrons.tick(i);
+
+            // Handle neutron decay
+            if (random.uniform(STREAM_DECAY, frame, i) < config.neutronDecayProb) {
+                claims[i] = DECAYED;
+                continue;
+            }
+
+            // Bounce off moderator blocks
+            if (moderators.size() > 0) {
+                moderate(i);
+            }
+            claims[i] = NO_CLAIM;
+        }
+    }
+
+    // Checks the neutrons in slots [from, to) that did not decay for collisions with nearby fuel particles
+    private void collideNeutrons(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (claims[i] != DECAYED) {
+                claims[i] = fuelGrid.findCollision(neutrons, i, kernels);
+            }
+        }
+    }
+
+    // Reflects a neutron off the moderator block it touches, if any, using the side of the block
+    // it hit. It is pushed back out to touching distance and slowed down.
+    private void moderate(int i) {
+        double radius = ParticleType.NEUTRON.getRadius();
+        int b = moderators.findHit(neutrons.x[i], neutrons.y[i], radius);
+        if (b == -1) {
+            return;
+        }
+        Rectangle block = graphiteBlocks.get(b);
+        int side = Collisions.hitSide(neutrons.x[i], neutrons.y[i], radius, block.x, block.y, block.width, block.height);
+        if ((side & Collisions.HORIZONTAL) != 0) {
+            boolean left = side == Collisions.LEFT;
+            neutrons.dx[i] = left ? -Math.abs(neutrons.dx[i]) : Math.abs(neutrons.dx[i]);
+            neutrons.x[i] = left ? block.x - radius : block.x + block.width + radius;
+        } else if ((side & Collisions.VERTICAL) != 0) {
+            boolean top = side == Collisions.TOP;
+            neutrons.dy[i] = top ? -Math.abs(neutrons.dy[i]) : Math.abs(neutrons.dy[i]);
+            neutrons.y[i] = top ? block.y - radius : block.y + block.height + radius;
+        }
+
+        // Slow down, but never to a stop
+        double speed = Math.sqrt(neutrons.dx[i] * neutrons.dx[i] + neutrons.dy[i] * neutrons.dy[i]);
+        if (speed > 0) {
+            double scale = Math.max(config.moderatorMinSpeed, speed * config.moderatorSpeedMul) / speed;
+            if (scale < 1) {
+                neutrons.dx[i] *= scale;
+                neutrons.dy[i] *= scale;
+            }
+        }
+    }
+
+    // Splits a neutron pass across the fork/join pool: transport, or collisions when collide is set
+    private static class NeutronTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ReactorEngine engine;
+        private final int from;
+        private final int to;
+        private final boolean collide;
+
+        NeutronTask(ReactorEngine engine, int from, int to, boolean collide) {
+            this.engine = engine;
+            this.from = from;
+            this.to = to;
+            this.collide = collide;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= engine.parallelThreshold) {
+                if (collide) {
+                    engine.collideNeutrons(from, to);
+                } else {
+                    engine.transportNeutrons(from, to);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new NeutronTask(engine, from, mid, collide), new NeutronTask(engine, mid, to, collide));
+        }
+    }
+
+    // Neutrons the simulated ones stand for. Without a neutron budget every neutron stands for one.
+    public double getNeutronPopulation() {
+        return config.neutronBudget > 0 ? neutrons.getTotalWeight() : neutrons.size();
+    }
+
+    // Number of fuel particles of a type
+    public int countFuel(ParticleType type) {
+        return fuels.getCount(type);
+    }
+
+    // Number of fuel chunks with depleted fuel or neutrons in them, out of getFuelGrid().getChunkCount()
+    public int countActiveChunks() {
+        return fuelGrid.countActiveChunks(neutrons);
+    }
+
+    // Steps the neutrons on the fork/join pool; the run is identical to the sequential mode
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    // Splits the neutron passes into tasks of this many neutrons, and only when there are at
+    // least that many. Lowered by ReplayHarness, so small runs go through the pool too.
+    void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = Math.max(1, parallelThreshold);
+    }
+
+    // Frames stepped on the fork/join pool, since the engine was built or restored
+    long getParallelFrames() {
+        return parallelFrames;
+    }
+
+    // Writes the whole state of the reactor: the world, the RNG streams, the particles, the
+    // pending degradation events and the running stats. A restored engine steps exactly like
+    // this one would have. The stepping mode and log manager are settings, and the metrics
+    // start over, so none of them are saved.
+    public void saveCheckpoint(File file) throws IOException {
+        try (Checkpoint out = Checkpoint.create(file)) {
+            out.putInt(screenWidth);
+            out.putInt(screenHeight);
+            config.write(out);
+            out.putLong(random.getSeed());
+            out.putLong(initRandom.getState());
+            out.putLong(degradationRandom.getState());
+            out.putLong(frame);
+            out.putDouble(temperature);
+            out.putDouble(energyOutput);
+            out.putBoolean(fissioned);
+            out.putInt(logInterval);
+            out.putInt(framesSinceLog);
+
+            fuels.write(out);
+            neutrons.write(out);
+            out.putInt(graphiteBlocks.size());
+            for (Rectangle block : graphiteBlocks) {
+                out.putInt(block.x);
+                out.putInt(block.y);
+                out.putInt(block.width);
+                out.putInt(block.height);
+            }
+
+            out.putBoolean(eventDriven);
+            transitions.write(out);
+            neutronStats.write(out);
+            temperatureStats.write(out);
+            powerStats.write(out);
+            lineage.write(out);
+        }
+    }
+
+    // Restores a reactor written by saveCheckpoint
+    public static ReactorEngine loadCheckpoint(File file) throws IOException {
+        try (Checkpoint in = Checkpoint.open(file)) {
+            int w = in.getInt();
+            int h = in.getInt();
+            ReactorConfig config = new ReactorConfig();
+            config.read(in);
+            ReactorEngine engine = new ReactorEngine(w, h, new RandomSource(in.getLong()), config);
+            engine.initRandom.setState(in.getLong());
+            engine.degradationRandom.setState(in.getLong());
+            engine.frame = in.getLong();
+            engine.temperature = in.getDouble();
+            engine.energyOutput = in.getDouble();
+            engine.fissioned = in.getBoolean();
+            engine.logInterval = in.getInt();
+            engine.framesSinceLog = in.getInt();
+
+            engine.fuels.read(in);
+            engine.neutrons.read(in);
+            int blocks = in.getCount();
+            for (int i = 0; i < blocks; i++) {
+                engine.graphiteBlocks.add(new Rectangle(in.getInt(), in.getInt(), in.getInt(), in.getInt()));
+            }
+            engine.moderators = new ModeratorTree(engine.graphiteBlocks);
+            engine.fuelGrid = engine.buildFuelGrid();
+
+            engine.eventDriven = in.getBoolean();
+            engine.transitions.read(in);
+            engine.neutronStats.read(in);
+            engine.temperatureStats.read(in);
+            engine.powerStats.read(in);
+            engine.lineage.read(in);
+            return engine;
+        }
+    }
+
+    // Gives the reactor fresh random streams, so runs forked from one checkpoint can differ
+    public void setSeed(long seed) {
+        reseed(new RandomSource(seed));
+    }
+
+    // Uses the SIMD kernels for the neutron phase, when the JVM has jdk.incubator.vector.
+    // Returns whether they are in use; the run is identical either way.
+    public boolean setVectorized(boolean vectorized) {
+        NeutronKernels vector = vectorized ? NeutronKernels.vector() : null;
+        kernels = vector != null ? vector : NeutronKernels.scalar();
+        return vector != null;
+    }
+
+    public ReactorConfig getConfig() { return new ReactorConfig(config); }
+    public ParticleStore getNeutrons() { return neutrons; }
+    public ParticleStore getFuels() { return fuels; }
+    public FuelGrid getFuelGrid() { return fuelGrid; }
+    public ArrayList<Rectangle> getGraphiteBlocks() { return graphiteBlocks; }
+    public RollingStats getNeutronStats() { return neutronStats; }
+    public RollingStats getTemperatureStats() { return temperatureStats; }
+    public RollingStats getPowerStats() { return powerStats; }
+    public LineageLog getLineage() { return lineage; }
+    public ReactorMetrics getMetrics() { return metrics; }
+    public double getTemperature() { return temperature; }
+    public double getEnergyOutput() { return energyOutput; }
+    public int getWidth() { return screenWidth; }
+    public int getHeight() { return screenHeight; }
+    public long getFrame() { return frame; }
+    public long getSeed() { return random.getSeed(); }
+    public boolean isParallel() { return parallel; }
+    public NeutronKernels getKernels() { return kernels; }
+    public boolean isEventDrivenDegradation() { return eventDriven; }
+    public boolean hasFissioned() { return fissioned; }
+}
@@ -0,0 +1,151 @@
+package reactor;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Runs a ReactorEngine on its own thread with a fixed timestep, independent of painting.
+// Every display frame the engine takes `substeps` steps and then publishes a FrameSnapshot,
+// so 60 frames/s with 10 substeps runs the reactor at 600 Hz.
+//
+// Snapshots are triple buffered: the engine always has a buffer of its own to fill, the painter
+// always has one to read, and the third holds the latest finished frame. Handing them over is
+// a single atomic swap, so neither side ever locks or waits for the other.
+//
+// Fuel types are not snapshotted (the grid can be huge). Instead the engine thread queues the
+// index of every fuel that changed type, and the painter redraws just those.
+public class ReactorLoop {
+
+    private static final int FRESH = 4; // Set on the middle buffer index when it holds an unread frame
+    private static final int INDEX_MASK = 3;
+    private static final int FUEL_CHANGE_CAPACITY = 1 << 14; // Must be a power of two
+    private static final long MAX_LAG_NANOS = 250_000_000; // How far behind the loop may fall before it stops catching up
+
+    private final ReactorEngine engine;
+    private final int frameRate;
+    private final int substeps;
+    private Thread thread;
+    private volatile boolean running;
+
+    // Triple buffer
+    private final FrameSnapshot[] snapshots = { new FrameSnapshot(), new FrameSnapshot(), new FrameSnapshot() };
+    private final AtomicInteger middle = new AtomicInteger();
+    private int back = 0; // Only used by the engine thread
+    private int front = 1; // Only used by the painter
+
+    // Fuel changes, single producer (engine thread) and single consumer (painter)
+    private final int[] fuelChanges = new int[FUEL_CHANGE_CAPACITY];
+    private volatile long fuelChangeHead;
+    private volatile long fuelChangeTail;
+    private final AtomicBoolean fuelChangesOverflowed = new AtomicBoolean();
+
+    private final AtomicBoolean fissioned = new AtomicBoolean();
+
+    public ReactorLoop(ReactorEngine engine, int frameRate, int substeps) {
+        this.engine = engine;
+        this.frameRate = frameRate;
+        this.substeps = Math.max(1, substeps);
+        engine.getFuels().trackChanges(FUEL_CHANGE_CAPACITY);
+        snapshots[2].capture(engine);
+        middle.set(2 | FRESH);
+    }
+
+    public ReactorEngine getEngine() {
+        return engine;
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this::runLoop, "reactor");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runLoop() {
+        long frameNanos = 1_000_000_000L / frameRate;
+        long next = System.nanoTime();
+        while (running) {
+
+            // Simulate
+            for (int s = 0; s < substeps; s++) {
+                engine.step();
+                if (engine.hasFissioned()) {
+                    fissioned.set(true);
+                }
+                queueFuelChanges();
+            }
+
+            // Publish the frame
+            snapshots[back].capture(engine);
+            back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+
+            // Wait for the next frame, or give up on catching up if the steps are too slow
+            next += frameNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            } else if (wait < -MAX_LAG_NANOS) {
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    private void queueFuelChanges() {
+        ParticleStore fuels = engine.getFuels();
+        if (fuels.haveChangesOverflowed()) {
+            fuelChangesOverflowed.set(true);
+        } else {
+            long head = fuelChangeHead;
+            for (int k = 0; k < fuels.getChangeCount(); k++) {
+                if (head - fuelChangeTail >= FUEL_CHANGE_CAPACITY) {
+                    fuelChangesOverflowed.set(true);
+                    break;
+                }
+                fuelChanges[(int) (head++ & (FUEL_CHANGE_CAPACITY - 1))] = fuels.getChange(k);
+            }
+            fuelChangeHead = head;
+        }
+        fuels.clearChanges();
+    }
+
+    // The latest published frame. The returned snapshot stays untouched until the next call.
+    public FrameSnapshot acquireSnapshot() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return snapshots[front];
+    }
+
+    // The next fuel index that changed type, or -1 if there are none queued
+    public int pollFuelChange() {
+        long tail = fuelChangeTail;
+        if (tail == fuelChangeHead) {
+            return -1;
+        }
+        int index = fuelChanges[(int) (tail & (FUEL_CHANGE_CAPACITY - 1))];
+        fuelChangeTail = tail + 1;
+        return index;
+    }
+
+    // Whether changes were dropped since the last call, so every fuel should be redrawn
+    public boolean takeFuelChangesOverflowed() {
+        return fuelChangesOverflowed.getAndSet(false);
+    }
+
+    // Whether any step since the last call had a collision
+    public boolean takeFissioned() {
+        return fissioned.getAndSet(false);
+    }
+}
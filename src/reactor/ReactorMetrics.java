@@ -0,0 +1,184 @@
+package reactor;
+
+import java.util.Locale;
+
+import jdk.jfr.EventType;
+
+// Where the frame time goes, and what happened in each frame. Every phase of a step, and the
+// painting (timed by the GUI), goes into its own LatencyHistogram, and the fissions, decays and
+// absorptions are counted. That is a handful of clock reads per frame and no allocation, so it
+// is always on. MetricsServer serves it in the Prometheus text format, and every step is also a
+// ReactorStepEvent for Java Flight Recorder when a recording is running.
+//
+// The engine thread writes everything but the paint times, which the painting thread writes.
+// Readers get a slightly stale view.
+public class ReactorMetrics {
+
+    // Phases
+    public static final int STEP = 0; // The whole step
+    public static final int LOGGING = 1; // Cooling and handing a record to the log manager
+    public static final int DEGRADATION = 2;
+    public static final int TRANSPORT = 3; // Moving, decaying and moderating the neutrons
+    public static final int COLLISION = 4; // Finding the fuel each neutron hit
+    public static final int SPAWN = 5; // Fissions, absorptions and removing the spent neutrons
+    public static final int PAINT = 6; // Drawing a frame
+    public static final String[] PHASES = { "step", "logging", "degradation", "transport", "collision", "spawn", "paint" };
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+    private static final EventType STEP_EVENT = EventType.getEventType(ReactorStepEvent.class);
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private final long[] lastNanos = new long[PHASES.length]; // Of the last step, for the flight recorder
+    private ReactorStepEvent event; // The flight recorder event of the step in progress, while recording
+
+    // Counters: totals over the run, and the current frame's
+    private long fissions;
+    private long decays;
+    private long absorptions;
+    private int frameFissions;
+    private int frameDecays;
+    private int frameAbsorptions;
+
+    // The state at the end of the last step
+    private int neutrons;
+    private int depleted;
+    private int uranium;
+    private int graphite;
+    private double temperature;
+    private double energyOutput;
+    private volatile long frames; // Written last, so a reader that reads it first sees the rest of the step
+
+    public ReactorMetrics() {
+        for (int p = 0; p < PHASES.length; p++) {
+            histograms[p] = new LatencyHistogram();
+        }
+    }
+
+    // Starts timing a step, and returns the time it started
+    public long beginStep() {
+        if (STEP_EVENT.isEnabled()) {
+            event = new ReactorStepEvent();
+            event.begin();
+        }
+        return System.nanoTime();
+    }
+
+    // Records the time since start against a phase, and returns the time now for the next one
+    public long lap(int phase, long start) {
+        long now = System.nanoTime();
+        record(phase, now - start);
+        return now;
+    }
+
+    public void record(int phase, long nanos) {
+        histograms[phase].record(nanos);
+        lastNanos[phase] = nanos;
+    }
+
+    public void countFission() { frameFissions++; }
+    public void countDecay() { frameDecays++; }
+    public void countAbsorption() { frameAbsorptions++; }
+
+    // Finishes the step begun at start, once the engine has advanced its frame
+    public void endStep(long start, ReactorEngine engine) {
+        lap(STEP, start);
+        fissions += frameFissions;
+        decays += frameDecays;
+        absorptions += frameAbsorptions;
+
+        if (event != null) {
+            event.frame = engine.getFrame();
+            event.neutrons = engine.getNeutrons().size();
+            event.fissions = frameFissions;
+            event.decays = frameDecays;
+            event.absorptions = frameAbsorptions;
+            event.logging = lastNanos[LOGGING];
+            event.degradation = lastNanos[DEGRADATION];
+            event.transport = lastNanos[TRANSPORT];
+            event.collision = lastNanos[COLLISION];
+            event.spawn = lastNanos[SPAWN];
+            event.commit();
+            event = null;
+        }
+        frameFissions = 0;
+        frameDecays = 0;
+        frameAbsorptions = 0;
+
+        neutrons = engine.getNeutrons().size();
+        depleted = engine.countFuel(ParticleType.DEPLETED);
+        uranium = engine.countFuel(ParticleType.URANIUM);
+        graphite = engine.countFuel(ParticleType.GRAPHITE);
+        temperature = engine.getTemperature();
+        energyOutput = engine.getEnergyOutput();
+        frames = engine.getFrame();
+    }
+
+    public LatencyHistogram getHistogram(int phase) { return histograms[phase]; }
+    public long getFrames() { return frames; }
+    public long getFissions() { return fissions; }
+    public long getDecays() { return decays; }
+    public long getAbsorptions() { return absorptions; }
+
+    // Everything in the Prometheus text exposition format. Times are in seconds.
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        long frames = this.frames;
+
+        out.append("# HELP reactor_phase_seconds Time spent in each phase of a step, and painting a frame\n");
+        out.append("# TYPE reactor_phase_seconds summary\n");
+        for (int p = 0; p < PHASES.length; p++) {
+            LatencyHistogram histogram = histograms[p];
+            long count = histogram.getCount();
+            for (double q : QUANTILES) {
+                out.append("reactor_phase_seconds{phase=\"").append(PHASES[p]).append("\",quantile=\"").append(q).append("\"} ");
+                appendSeconds(out, histogram.getQuantile(q)).append('\n');
+            }
+            out.append("reactor_phase_seconds_sum{phase=\"").append(PHASES[p]).append("\"} ");
+            appendSeconds(out, histogram.getSum()).append('\n');
+            out.append("reactor_phase_seconds_count{phase=\"").append(PHASES[p]).append("\"} ").append(count).append('\n');
+        }
+        out.append("# HELP reactor_phase_seconds_max Longest time spent in each phase\n");
+        out.append("# TYPE reactor_phase_seconds_max gauge\n");
+        for (int p = 0; p < PHASES.length; p++) {
+            out.append("reactor_phase_seconds_max{phase=\"").append(PHASES[p]).append("\"} ");
+            appendSeconds(out, histograms[p].getMax()).append('\n');
+        }
+
+        counter(out, "reactor_frames_total", "Frames simulated", frames);
+        counter(out, "reactor_fissions_total", "Neutrons that split uranium", fissions);
+        counter(out, "reactor_decays_total", "Neutrons that decayed", decays);
+        counter(out, "reactor_absorptions_total", "Neutrons absorbed by graphite fuel", absorptions);
+
+        gauge(out, "reactor_neutrons", "Neutrons simulated at the end of the last frame", neutrons);
+        out.append("# HELP reactor_fuel Fuel particles of each type\n");
+        out.append("# TYPE reactor_fuel gauge\n");
+        out.append("reactor_fuel{type=\"depleted\"} ").append(depleted).append('\n');
+        out.append("reactor_fuel{type=\"uranium\"} ").append(uranium).append('\n');
+        out.append("reactor_fuel{type=\"graphite\"} ").append(graphite).append('\n');
+        gauge(out, "reactor_temperature", "Reactor temperature", temperature);
+        gauge(out, "reactor_energy_output", "Energy output over the run", energyOutput);
+        return out.toString();
+    }
+
+    private static StringBuilder appendSeconds(StringBuilder out, long nanos) {
+        return out.append(String.format(Locale.ROOT, "%.9f", nanos / 1e9));
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, double value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+}
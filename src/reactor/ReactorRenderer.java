@@ -0,0 +1,197 @@
+package reactor;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+// Draws the frames published by a ReactorLoop. Every particle type is pre-rendered once into a sprite, and the
+// particles are blitted instead of filled as anti-aliased ovals. Fuel is kept in its own layer
+// image that is only touched where a fuel particle changed type, so the cost of a frame
+// follows the number of neutrons and changes rather than the size of the fuel grid.
+//
+// Only a view of the world is drawn. The fuel layer covers just that view, and is redrawn from
+// the fuel chunks under it when the view moves, so a huge lattice costs no more to show than
+// the part of it on screen.
+public class ReactorRenderer {
+
+    private static final ParticleType[] TYPES = ParticleType.values();
+    private static final int CHAIN_REACTION_LIFETIME = 180; // Lifespan in frames of chain reaction lines
+    private static final int MAX_LINE_ALPHA = 100; // Maximum opacity for reaction lines
+    private static final BasicStroke CHAIN_STROKE = new BasicStroke(2.0f);
+    private static final Color[] CHAIN_COLORS = new Color[MAX_LINE_ALPHA + 1]; // Orange, by alpha
+    private static final Color TRANSPARENT = new Color(0, 0, 0, 0);
+
+    static {
+        for (int alpha = 0; alpha <= MAX_LINE_ALPHA; alpha++) {
+            CHAIN_COLORS[alpha] = new Color(255, 165, 0, alpha);
+        }
+    }
+
+    private final ReactorLoop loop;
+    private final ReactorEngine engine; // Only for the fuel positions, types and chunks, which are safe to read while it runs
+    private final BufferedImage[] sprites = new BufferedImage[TYPES.length];
+    private final int spriteMargin; // Largest sprite, so fuel just outside the view still gets its edge drawn
+    private BufferedImage fuelLayer; // The fuel in the view, with its corner at (layerX, layerY) in the world
+    private Graphics2D fuelGraphics;
+    private int layerX;
+    private int layerY;
+    private boolean fuelLayerDrawn;
+
+    public ReactorRenderer(ReactorLoop loop) {
+        this.loop = loop;
+        this.engine = loop.getEngine();
+
+        // Pre-render one anti-aliased sprite per particle type
+        int margin = 0;
+        for (ParticleType type : TYPES) {
+            int size = spriteSize(type);
+            BufferedImage sprite = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g = sprite.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(type.getColor());
+            g.fillOval(0, 0, size, size);
+            g.dispose();
+            sprites[type.ordinal()] = sprite;
+            margin = Math.max(margin, size);
+        }
+        spriteMargin = margin;
+    }
+
+    // Particles are drawn with a diameter equal to their radius value, centered on them
+    private static int spriteSize(ParticleType type) {
+        return Math.max(1, (int) type.getRadius());
+    }
+
+    // Draws the part of the world inside view (in world coordinates) at the origin of g2
+    public void paint(Graphics2D g2, FrameSnapshot snapshot, boolean chainReactions, Rectangle view) {
+        g2.translate(-view.x, -view.y);
+
+        // Draw chain reactions
+        if (chainReactions) {
+            drawChainReactions(g2, snapshot, view);
+        }
+
+        // Draw fuel rods
+        g2.setColor(ParticleType.GRAPHITE.getColor());
+        for (Rectangle r : engine.getGraphiteBlocks()) {
+            g2.fill(r);
+        }
+
+        // Draw fuel
+        updateFuelLayer(view);
+        g2.drawImage(fuelLayer, layerX, layerY, null);
+
+        // Draw neutrons
+        BufferedImage sprite = sprites[ParticleType.NEUTRON.ordinal()];
+        double radius = ParticleType.NEUTRON.getRadius();
+        double left = view.x - radius, right = view.x + view.width + radius;
+        double top = view.y - radius, bottom = view.y + view.height + radius;
+        for (int i = 0; i < snapshot.neutronCount; i++) {
+            if (snapshot.x[i] >= left && snapshot.x[i] <= right && snapshot.y[i] >= top && snapshot.y[i] <= bottom) {
+                g2.drawImage(sprite, (int) (snapshot.x[i] - radius / 2), (int) (snapshot.y[i] - radius / 2), null);
+            }
+        }
+
+        g2.translate(view.x, view.y);
+    }
+
+    // Redraws the fuel that changed type since the last frame, or all of the fuel in view the
+    // first time, whenever the view moved and whenever more changed than the loop could queue
+    private void updateFuelLayer(Rectangle view) {
+        ParticleStore fuels = engine.getFuels();
+        int width = Math.max(1, view.width);
+        int height = Math.max(1, view.height);
+        if (fuelLayer == null || fuelLayer.getWidth() != width || fuelLayer.getHeight() != height) {
+            if (fuelGraphics != null) {
+                fuelGraphics.dispose();
+            }
+            // Sprites replace whatever was under them
+            fuelLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            fuelGraphics = fuelLayer.createGraphics();
+            fuelGraphics.setComposite(AlphaComposite.Src);
+            fuelLayerDrawn = false;
+        }
+
+        boolean overflowed = loop.takeFuelChangesOverflowed();
+        if (overflowed || !fuelLayerDrawn || layerX != view.x || layerY != view.y) {
+            while (loop.pollFuelChange() != -1) {
+                // Covered by the full redraw
+            }
+            layerX = view.x;
+            layerY = view.y;
+            fuelGraphics.setBackground(TRANSPARENT);
+            fuelGraphics.clearRect(0, 0, width, height);
+
+            // Only the chunks under the view, one pass per type so each sprite stays hot while it is being drawn
+            FuelGrid grid = engine.getFuelGrid();
+            int colLo = grid.chunkColumn(layerX - spriteMargin);
+            int colHi = grid.chunkColumn(layerX + width + spriteMargin);
+            int rowLo = grid.chunkRow(layerY - spriteMargin);
+            int rowHi = grid.chunkRow(layerY + height + spriteMargin);
+            for (ParticleType type : TYPES) {
+                for (int row = rowLo; row <= rowHi; row++) {
+                    for (int col = colLo; col <= colHi; col++) {
+                        int chunk = row * grid.getChunkColumns() + col;
+                        for (int k = grid.getChunkStart(chunk); k < grid.getChunkEnd(chunk); k++) {
+                            int i = grid.getFuel(k);
+                            if (fuels.type[i] == type.ordinal()) {
+                                drawFuel(fuels, i);
+                            }
+                        }
+                    }
+                }
+            }
+            fuelLayerDrawn = true;
+        } else {
+            for (int i = loop.pollFuelChange(); i != -1; i = loop.pollFuelChange()) {
+                drawFuel(fuels, i);
+            }
+        }
+    }
+
+    // Draws one fuel particle into the layer, unless it is entirely outside it
+    private void drawFuel(ParticleStore fuels, int i) {
+        ParticleType type = fuels.getType(i);
+        double radius = type.getRadius();
+        int x = (int) (fuels.x[i] - radius / 2) - layerX;
+        int y = (int) (fuels.y[i] - radius / 2) - layerY;
+        if (x + spriteMargin < 0 || y + spriteMargin < 0 || x > fuelLayer.getWidth() || y > fuelLayer.getHeight()) {
+            return;
+        }
+        fuelGraphics.drawImage(sprites[type.ordinal()], x, y, null);
+    }
+
+    private void drawChainReactions(Graphics2D g2, FrameSnapshot snapshot, Rectangle view) {
+        g2.setStroke(CHAIN_STROKE);
+        int right = view.x + view.width;
+        int bottom = view.y + view.height;
+
+        for (int i = 0; i < snapshot.neutronCount; i++) {
+            if (snapshot.hasOrigin[i]) {
+                // Calculate line age and alpha
+                int age = snapshot.age[i];
+                if (age > CHAIN_REACTION_LIFETIME)
+                    continue;
+
+                // Skip lines that lie entirely to one side of the view
+                double x0 = Math.min(snapshot.x[i], snapshot.originX[i]), x1 = Math.max(snapshot.x[i], snapshot.originX[i]);
+                double y0 = Math.min(snapshot.y[i], snapshot.originY[i]), y1 = Math.max(snapshot.y[i], snapshot.originY[i]);
+                if (x1 < view.x - 1 || x0 > right + 1 || y1 < view.y - 1 || y0 > bottom + 1)
+                    continue;
+
+                // Calculate alpha based on age
+                int alpha = (int) (MAX_LINE_ALPHA * (1 - (double) age / CHAIN_REACTION_LIFETIME));
+
+                // Draw line with fade effect
+                g2.setColor(CHAIN_COLORS[alpha]);
+                g2.drawLine(
+                        (int) snapshot.x[i], (int) snapshot.y[i],
+                        (int) snapshot.originX[i], (int) snapshot.originY[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package reactor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One reactor step, for Java Flight Recorder. ReactorMetrics commits one per step while a
+// recording is running, e.g. java -XX:StartFlightRecording=filename=run.jfr ... Stack traces
+// are left out, they would cost more than the step.
+@Name("reactor.Step")
+@Label("Reactor Step")
+@Category("Reactor")
+@Description("One frame of the reactor, with the time spent in each phase")
+@StackTrace(false)
+public class ReactorStepEvent extends Event {
+
+    @Label("Frame")
+    public long frame;
+
+    @Label("Neutrons")
+    public int neutrons;
+
+    @Label("Fissions")
+    public int fissions;
+
+    @Label("Decays")
+    public int decays;
+
+    @Label("Absorptions")
+    public int absorptions;
+
+    @Label("Logging")
+    @Timespan
+    public long logging;
+
+    @Label("Degradation")
+    @Timespan
+    public long degradation;
+
+    @Label("Transport")
+    @Timespan
+    public long transport;
+
+    @Label("Collision")
+    @Timespan
+    public long collision;
+
+    @Label("Spawn")
+    @Timespan
+    public long spawn;
+}
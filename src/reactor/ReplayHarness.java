@@ -0,0 +1,391 @@
+package reactor;
+
+import java.awt.Rectangle;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Replays one seeded reactor run under different execution modes and checks that they agree
+// frame by frame. Every run is recorded as a Trace: per frame the neutron and fuel counts, the
+// temperature, the energy output and a hash of every particle. The modes are all meant to give
+// the same run as stepping sequentially, so any difference is a bug, and the first frame that
+// differs is where it starts. A trace saved with --record is a golden trace: --against replays
+// it later (with the settings stored in it) to catch changes to the physics between versions.
+public class ReplayHarness {
+
+    // Modes compared against the sequential run
+    public static final String PARALLEL = "parallel"; // Neutron passes on the fork/join pool
+    public static final String VECTOR = "vector"; // SIMD kernels, when jdk.incubator.vector is loaded
+    public static final String CHECKPOINT = "checkpoint"; // Saved and restored halfway through
+    public static final String[] MODES = { PARALLEL, VECTOR, CHECKPOINT };
+
+    private static final int PARALLEL_THRESHOLD = 32; // Neutrons per task in parallel mode, so a few hundred already fork
+    private static final int TRACE_MAGIC = 0x52545243; // "RTRC"
+    private static final int TRACE_VERSION = 1;
+
+    // What the run starts from
+    private final ReactorConfig config;
+    private long seed = 1;
+    private int width = 800;
+    private int height = 600;
+    private int strayNeutrons; // Added on top of the ones the lattice makes
+    private boolean eventDriven;
+    private List<Rectangle> moderators = new ArrayList<Rectangle>();
+    private int parallelThreshold = PARALLEL_THRESHOLD; // Not part of the run, so not saved with a trace
+
+    public ReplayHarness(ReactorConfig config) {
+        this.config = new ReactorConfig(config);
+    }
+
+    public void setSeed(long seed) { this.seed = seed; }
+    public void setStrayNeutrons(int strayNeutrons) { this.strayNeutrons = strayNeutrons; }
+    public void setEventDrivenDegradation(boolean eventDriven) { this.eventDriven = eventDriven; }
+    public void setModerators(List<Rectangle> moderators) { this.moderators = new ArrayList<Rectangle>(moderators); }
+    public void setParallelThreshold(int parallelThreshold) { this.parallelThreshold = parallelThreshold; }
+
+    private ReactorEngine newEngine() {
+        ReactorEngine engine = new ReactorEngine(width, height, seed, config);
+        engine.setModerators(moderators);
+        engine.addStrayNeutrons(strayNeutrons);
+        engine.setEventDrivenDegradation(eventDriven);
+        return engine;
+    }
+
+    // Steps a fresh reactor for frames frames in a mode (null to step sequentially). Returns
+    // null if the mode is not available in this JVM. The trace's modeFrames tells how many
+    // frames actually went through the mode.
+    public Trace record(String mode, int frames) throws IOException {
+        if (mode != null && !mode.equals(PARALLEL) && !mode.equals(VECTOR) && !mode.equals(CHECKPOINT)) {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        ReactorEngine engine = newEngine();
+        if (PARALLEL.equals(mode)) {
+            engine.setParallel(true);
+            engine.setParallelThreshold(parallelThreshold);
+        }
+        if (VECTOR.equals(mode) && !engine.setVectorized(true)) {
+            return null;
+        }
+
+        Trace trace = new Trace(frames);
+        for (int f = 0; f < frames; f++) {
+            if (CHECKPOINT.equals(mode) && f == frames / 2) {
+                File file = File.createTempFile("replay", ".ckpt");
+                try {
+                    engine.saveCheckpoint(file);
+                    engine = ReactorEngine.loadCheckpoint(file);
+                } finally {
+                    file.delete();
+                }
+            }
+            engine.step();
+            trace.capture(f, engine);
+        }
+        if (PARALLEL.equals(mode)) {
+            trace.modeFrames = (int) engine.getParallelFrames();
+        } else if (CHECKPOINT.equals(mode)) {
+            trace.modeFrames = frames - frames / 2;
+        } else {
+            trace.modeFrames = frames;
+        }
+        return trace;
+    }
+
+    // A hash of every particle: the position, velocity, weight and spread of each neutron in slot
+    // order, and the type and age of each fuel
+    public static long stateHash(ReactorEngine engine) {
+        long h = 0;
+        ParticleStore neutrons = engine.getNeutrons();
+        for (int i = 0; i < neutrons.size(); i++) {
+            h = mix(h, Double.doubleToLongBits(neutrons.x[i]));
+            h = mix(h, Double.doubleToLongBits(neutrons.y[i]));
+            h = mix(h, Double.doubleToLongBits(neutrons.dx[i]));
+            h = mix(h, Double.doubleToLongBits(neutrons.dy[i]));
+            h = mix(h, Double.doubleToLongBits(neutrons.weight[i]));
+            h = mix(h, neutrons.spread[i]);
+        }
+        ParticleStore fuels = engine.getFuels();
+        for (int i = 0; i < fuels.size(); i++) {
+            h = mix(h, fuels.type[i] | (long) fuels.getFramesSinceChange(i) << 8);
+        }
+        return h;
+    }
+
+    private static long mix(long h, long value) {
+        h = (h ^ value) * 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 29);
+    }
+
+    // Writes the settings of the run and its trace
+    public void write(File file, Trace trace) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(TRACE_MAGIC);
+            out.writeInt(TRACE_VERSION);
+            out.writeLong(seed);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(strayNeutrons);
+            out.writeBoolean(eventDriven);
+            out.writeInt(ReactorConfig.PARAMETERS.length);
+            for (String name : ReactorConfig.PARAMETERS) {
+                out.writeUTF(name);
+                out.writeDouble(config.get(name));
+            }
+            out.writeInt(moderators.size());
+            for (Rectangle block : moderators) {
+                out.writeInt(block.x);
+                out.writeInt(block.y);
+                out.writeInt(block.width);
+                out.writeInt(block.height);
+            }
+            trace.write(out);
+        }
+    }
+
+    // Reads a golden trace, and returns it along with a harness set up to replay it
+    public static ReplayHarness read(File file, Trace[] golden) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != TRACE_MAGIC) {
+                throw new IOException("Not a replay trace: " + file);
+            }
+            int version = in.readInt();
+            if (version != TRACE_VERSION) {
+                throw new IOException("Unsupported trace version " + version + ": " + file);
+            }
+            ReplayHarness harness = new ReplayHarness(new ReactorConfig());
+            harness.seed = in.readLong();
+            harness.width = in.readInt();
+            harness.height = in.readInt();
+            harness.strayNeutrons = in.readInt();
+            harness.eventDriven = in.readBoolean();
+            int parameters = in.readInt();
+            for (int p = 0; p < parameters; p++) {
+                harness.config.set(in.readUTF(), in.readDouble());
+            }
+            int blocks = in.readInt();
+            for (int b = 0; b < blocks; b++) {
+                harness.moderators.add(new Rectangle(in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+            }
+            golden[0] = Trace.read(in);
+            return harness;
+        }
+    }
+
+    // What one run looked like after each frame. Entry f is the state after frame f + 1.
+    public static class Trace {
+
+        public final int frames;
+        public final int[] neutrons; // Simulated, not weighted
+        public final int[] depleted;
+        public final int[] uranium;
+        public final int[] graphite;
+        public final double[] temperature;
+        public final double[] energyOutput;
+        public final long[] hash; // stateHash()
+        public int modeFrames; // Frames that went through the mode under test, not saved
+
+        public Trace(int frames) {
+            this.frames = frames;
+            neutrons = new int[frames];
+            depleted = new int[frames];
+            uranium = new int[frames];
+            graphite = new int[frames];
+            temperature = new double[frames];
+            energyOutput = new double[frames];
+            hash = new long[frames];
+        }
+
+        void capture(int f, ReactorEngine engine) {
+            neutrons[f] = engine.getNeutrons().size();
+            depleted[f] = engine.countFuel(ParticleType.DEPLETED);
+            uranium[f] = engine.countFuel(ParticleType.URANIUM);
+            graphite[f] = engine.countFuel(ParticleType.GRAPHITE);
+            temperature[f] = engine.getTemperature();
+            energyOutput[f] = engine.getEnergyOutput();
+            hash[f] = stateHash(engine);
+        }
+
+        public int getPeakNeutrons() {
+            int peak = 0;
+            for (int f = 0; f < frames; f++) {
+                peak = Math.max(peak, neutrons[f]);
+            }
+            return peak;
+        }
+
+        // The first entry where the traces differ in anything, to the bit, or -1 if they agree
+        // over every frame. Traces of different lengths differ where the shorter one ends.
+        public int firstDivergence(Trace other) {
+            int n = Math.min(frames, other.frames);
+            for (int f = 0; f < n; f++) {
+                if (neutrons[f] != other.neutrons[f] || depleted[f] != other.depleted[f]
+                        || uranium[f] != other.uranium[f] || graphite[f] != other.graphite[f]
+                        || Double.doubleToLongBits(temperature[f]) != Double.doubleToLongBits(other.temperature[f])
+                        || Double.doubleToLongBits(energyOutput[f]) != Double.doubleToLongBits(other.energyOutput[f])
+                        || hash[f] != other.hash[f]) {
+                    return f;
+                }
+            }
+            return frames == other.frames ? -1 : n;
+        }
+
+        // What differs at entry f, as "field this != other" for every field that does
+        public String describeDivergence(int f, Trace other) {
+            if (f >= frames || f >= other.frames) {
+                return "the runs have " + frames + " and " + other.frames + " frames";
+            }
+            StringBuilder out = new StringBuilder();
+            describe(out, "neutrons", neutrons[f], other.neutrons[f]);
+            describe(out, "depleted", depleted[f], other.depleted[f]);
+            describe(out, "uranium", uranium[f], other.uranium[f]);
+            describe(out, "graphite", graphite[f], other.graphite[f]);
+            if (Double.doubleToLongBits(temperature[f]) != Double.doubleToLongBits(other.temperature[f])) {
+                out.append(", temperature ").append(temperature[f]).append(" != ").append(other.temperature[f]);
+            }
+            if (Double.doubleToLongBits(energyOutput[f]) != Double.doubleToLongBits(other.energyOutput[f])) {
+                out.append(", energy ").append(energyOutput[f]).append(" != ").append(other.energyOutput[f]);
+            }
+            if (hash[f] != other.hash[f]) {
+                out.append(", particle hash ").append(Long.toHexString(hash[f])).append(" != ").append(Long.toHexString(other.hash[f]));
+            }
+            return out.substring(2);
+        }
+
+        private static void describe(StringBuilder out, String field, int value, int other) {
+            if (value != other) {
+                out.append(", ").append(field).append(' ').append(value).append(" != ").append(other);
+            }
+        }
+
+        // One frame after another, 40 bytes each
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(frames);
+            for (int f = 0; f < frames; f++) {
+                out.writeInt(neutrons[f]);
+                out.writeInt(depleted[f]);
+                out.writeInt(uranium[f]);
+                out.writeInt(graphite[f]);
+                out.writeDouble(temperature[f]);
+                out.writeDouble(energyOutput[f]);
+                out.writeLong(hash[f]);
+            }
+        }
+
+        static Trace read(DataInputStream in) throws IOException {
+            Trace trace = new Trace(in.readInt());
+            for (int f = 0; f < trace.frames; f++) {
+                trace.neutrons[f] = in.readInt();
+                trace.depleted[f] = in.readInt();
+                trace.uranium[f] = in.readInt();
+                trace.graphite[f] = in.readInt();
+                trace.temperature[f] = in.readDouble();
+                trace.energyOutput[f] = in.readDouble();
+                trace.hash[f] = in.readLong();
+            }
+            return trace;
+        }
+    }
+
+    // Compares a trace against the reference and prints the outcome. Returns whether they agree,
+    // which a mode that never ran does not: it would pass without checking anything.
+    private static boolean check(String name, Trace reference, Trace trace, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (trace == null) {
+            System.out.println(String.format("%s: not available in this JVM, leave it out with --modes", name));
+            return false;
+        }
+        int f = reference.firstDivergence(trace);
+        if (f == -1 && trace.modeFrames == 0) {
+            System.out.println(String.format("%s: never exercised in %d frames", name, trace.frames));
+            return false;
+        }
+        if (f == -1) {
+            System.out.println(String.format("%s: identical over %d frames, %d of them in the mode (%.3fs)", name, trace.frames, trace.modeFrames, seconds));
+            return true;
+        }
+        System.out.println(String.format("%s: diverges at frame %d: %s", name, f + 1, reference.describeDivergence(f, trace)));
+        return false;
+    }
+
+    public static void main(String[] args) throws IOException {
+        // Usage: java reactor.ReplayHarness [--frames <n>] [--seed <seed>] [--set <parameter>=<value>] ... [--neutrons <n>]
+        //                                   [--event-degradation] [--moderators <layout>] [--modes parallel,vector,checkpoint]
+        //                                   [--parallel-threshold <n>] [--record <trace>] [--against <trace>]
+        // Exits with status 1 if any run differs from the reference, or any mode never ran.
+        ReplayHarness harness = new ReplayHarness(new ReactorConfig());
+        int frames = 5000;
+        String[] modes = MODES;
+        int parallelThreshold = PARALLEL_THRESHOLD;
+        File recordFile = null;
+        File againstFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--frames") && i + 1 < args.length) {
+                frames = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                harness.setSeed(Long.parseLong(args[++i]));
+            } else if (args[i].equals("--set") && i + 1 < args.length) {
+                String[] parameter = args[++i].split("=", 2);
+                if (parameter.length != 2) {
+                    throw new IllegalArgumentException("Expected <parameter>=<value>: " + args[i]);
+                }
+                harness.config.set(parameter[0], Double.parseDouble(parameter[1]));
+            } else if (args[i].equals("--neutrons") && i + 1 < args.length) {
+                harness.setStrayNeutrons(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--event-degradation")) {
+                harness.setEventDrivenDegradation(true);
+            } else if (args[i].equals("--moderators") && i + 1 < args.length) {
+                harness.setModerators(ModeratorTree.readLayout(new File(args[++i])));
+            } else if (args[i].equals("--modes") && i + 1 < args.length) {
+                modes = args[++i].isEmpty() ? new String[0] : args[i].split(",");
+            } else if (args[i].equals("--parallel-threshold") && i + 1 < args.length) {
+                parallelThreshold = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--record") && i + 1 < args.length) {
+                recordFile = new File(args[++i]);
+            } else if (args[i].equals("--against") && i + 1 < args.length) {
+                againstFile = new File(args[++i]);
+            }
+        }
+
+        harness.setParallelThreshold(parallelThreshold);
+
+        // The reference is the golden trace if there is one, and a sequential run otherwise
+        boolean agree = true;
+        Trace reference;
+        long start = System.nanoTime();
+        if (againstFile != null) {
+            Trace[] golden = new Trace[1];
+            harness = read(againstFile, golden);
+            harness.setParallelThreshold(parallelThreshold);
+            reference = golden[0];
+            agree &= check("sequential against " + againstFile, reference, harness.record(null, reference.frames), start);
+        } else {
+            reference = harness.record(null, frames);
+            System.out.println(String.format("Recorded %d frames of seed %d in %.3fs, peaking at %d neutrons",
+                    reference.frames, harness.seed, (System.nanoTime() - start) / 1e9, reference.getPeakNeutrons()));
+        }
+        if (recordFile != null) {
+            harness.write(recordFile, reference);
+            System.out.println("Wrote the trace to " + recordFile);
+        }
+
+        for (String mode : modes) {
+            start = System.nanoTime();
+            Trace trace = harness.record(mode, reference.frames);
+            agree &= check(mode, reference, trace, start);
+            if (trace != null && trace.modeFrames == 0 && mode.equals(PARALLEL)) {
+                System.out.println(String.format("  (the neutrons are only split across threads from %d, lower --parallel-threshold or add some with --neutrons)",
+                        parallelThreshold));
+            }
+        }
+        if (!agree) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package reactor;
+
+import java.io.IOException;
+
+// Exponentially weighted running mean and variance of a series, updated in O(1) per sample.
+// A window of N samples weighs recent values like an N sample moving average would.
+public class RollingStats {
+
+    private final double alpha;
+    private double mean;
+    private double variance;
+    private long samples;
+
+    public RollingStats(int window) {
+        this.alpha = 2.0 / (window + 1);
+    }
+
+    public void add(double value) {
+        if (samples++ == 0) {
+            mean = value;
+            variance = 0;
+            return;
+        }
+        double diff = value - mean;
+        double increment = alpha * diff;
+        mean += increment;
+        variance = (1 - alpha) * (variance + diff * increment);
+    }
+
+    public double getMean() { return mean; }
+    public double getVariance() { return variance; }
+    public double getStandardDeviation() { return Math.sqrt(variance); }
+    public long getSamples() { return samples; }
+
+    public void write(Checkpoint out) throws IOException {
+        out.putDouble(mean);
+        out.putDouble(variance);
+        out.putLong(samples);
+    }
+
+    public void read(Checkpoint in) throws IOException {
+        mean = in.getDouble();
+        variance = in.getDouble();
+        samples = in.getLong();
+    }
+}
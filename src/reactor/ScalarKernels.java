@@ -0,0 +1,32 @@
+package reactor;
+
+// One particle at a time, the reference for VectorKernels
+class ScalarKernels implements NeutronKernels {
+
+    static final ScalarKernels INSTANCE = new ScalarKernels();
+
+    @Override
+    public void moveAndBounce(ParticleStore particles, int from, int to, double maxX, double maxY) {
+        for (int i = from; i < to; i++) {
+            particles.move(i);
+            particles.bounceBounds(i, 0, maxX, 0, maxY);
+        }
+    }
+
+    @Override
+    public int firstWithin(double[] xs, double[] ys, int from, int to, double x, double y, double radiusSquared) {
+        for (int k = from; k < to; k++) {
+            double dx = xs[k] - x;
+            double dy = ys[k] - y;
+            if (dx * dx + dy * dy < radiusSquared) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,207 @@
+package reactor;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+
+import javax.swing.JPanel;
+import javax.swing.Timer;
+
+import java.io.File;
+
+public class Simulation extends JPanel implements MouseListener, MouseMotionListener, KeyListener {
+
+    // The reactor being displayed
+    private ReactorEngine engine;
+    private ReactorLoop loop; // Steps the engine on its own thread
+    private ReactorRenderer renderer;
+    private GeigerAudio audio; // Plays the click, or null when it is turned off
+    private int screenWidth;
+    private int screenHeight;
+
+    // The part of the world on screen, dragged around with the mouse
+    private int viewX;
+    private int viewY;
+    private final Rectangle view = new Rectangle();
+    private int dragX;
+    private int dragY;
+
+    // FLAGS
+    private static boolean ENABLE_CHAIN_REACTION_TRACE = false; // enable the lines showing chain reactions
+    private static boolean ENABLE_DEBUG_STATS = true; // enable temperature, and particle count stats
+    private static boolean ENABLE_GEIGER_CLICK = true; // enable geiger click sound playing
+    private static boolean ENABLE_DATA_LOGGING = true;
+
+    // CONSTANTS
+    private static final Color BACKGROUND = new Color(240, 244, 248);
+    private static final int FRAME_RATE = 60; // Frames drawn per second
+    private static final String GEIGER_SOUND = "src/geiger.wav";
+    private static final int MAX_VIEW_WIDTH = 1200; // Largest preferred size, bigger worlds are panned
+    private static final int MAX_VIEW_HEIGHT = 800;
+
+    public Simulation(int w, int h) {
+        this(w, h, System.nanoTime());
+    }
+
+    public Simulation(int w, int h, long seed) {
+        this(w, h, seed, 1);
+    }
+
+    // The reactor takes `substeps` steps for each of the 60 frames drawn per second
+    public Simulation(int w, int h, long seed, int substeps) {
+        this(new ReactorEngine(w, h, seed), substeps);
+    }
+
+    public Simulation(ReactorEngine engine, int substeps) {
+        this(engine, substeps, LogManager.Format.CSV);
+    }
+
+    // Displays an existing reactor, such as one restored from a checkpoint, logging in logFormat
+    public Simulation(ReactorEngine engine, int substeps, LogManager.Format logFormat) {
+        this.setFocusable(true);
+        this.setBackground(BACKGROUND);
+        this.addMouseListener(this);
+        this.addMouseMotionListener(this);
+        this.addKeyListener(this);
+
+        // Set up the screen
+        this.screenWidth = engine.getWidth();
+        this.screenHeight = engine.getHeight();
+        Dimension size = getPreferredSize();
+        viewX = (screenWidth - size.width) / 2;
+        viewY = (screenHeight - size.height) / 2;
+
+        // Create the reactor
+        this.engine = engine;
+        loop = new ReactorLoop(engine, FRAME_RATE, substeps);
+        renderer = new ReactorRenderer(loop);
+
+        // Load the click sound
+        if (ENABLE_GEIGER_CLICK) {
+            audio = new GeigerAudio(new File(GEIGER_SOUND));
+        }
+
+        // Setup data logging
+        if (ENABLE_DATA_LOGGING) {
+            engine.setLogManager(new LogManager(LogManager.defaultFile(logFormat), logFormat));
+        }
+
+        // Start the simulation
+        loop.start();
+        t.start();
+    }
+
+    // Only paints; the reactor runs on the loop's thread
+    private Timer t = new Timer(1000 / FRAME_RATE, (e) -> {
+
+        // Play the click sound, at most once per frame drawn
+        if (audio != null && loop.takeFissioned()) {
+            audio.click();
+        }
+
+        // Repaint everything
+        repaint();
+    });
+
+    public Dimension getPreferredSize() {
+        return new Dimension(Math.min(screenWidth, MAX_VIEW_WIDTH), Math.min(screenHeight, MAX_VIEW_HEIGHT));
+    }
+
+    public void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+
+        // Set up painting
+        super.paintComponent(g);
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // Keep the view inside the world
+        viewX = Math.max(0, Math.min(viewX, screenWidth - getWidth()));
+        viewY = Math.max(0, Math.min(viewY, screenHeight - getHeight()));
+        view.setBounds(viewX, viewY, getWidth(), getHeight());
+
+        // Draw the latest frame of the reactor
+        FrameSnapshot frame = loop.acquireSnapshot();
+        renderer.paint(g2, frame, ENABLE_CHAIN_REACTION_TRACE, view);
+
+        if (ENABLE_DEBUG_STATS) {
+            g2.setColor(ParticleType.DEPLETED.getColor());
+            String simulated = frame.neutronPopulation != frame.neutronCount ? " (" + frame.neutronCount + " simulated)" : "";
+            g2.drawString(
+                    "Neutrons: " + Math.round(frame.neutronPopulation) + simulated + ", Fuels: " + frame.fuelCount + "[D:" + frame.depletedCount + ",U:" + frame.uraniumCount + ",G:" + frame.graphiteCount + "]",
+                    10, 20);
+            g2.drawString("Temperature: " + String.format("%.3f", frame.temperature), 10, 35);
+            g2.drawString("Energy out: " + String.format("%.3f", frame.energyOutput), 10, 50);
+            g2.drawString(String.format("Avg neutrons: %.1f ± %.1f, Avg power: %.3f ± %.3f",
+                    frame.neutronMean, frame.neutronDeviation, frame.powerMean, frame.powerDeviation), 10, 65);
+            g2.drawString(String.format("Multiplication factor: %.3f, Mean chain length: %.2f",
+                    frame.multiplicationFactor, frame.meanChainLength), 10, 80);
+            g2.drawString(String.format("Active chunks: %d of %d", frame.activeChunkCount, frame.chunkCount), 10, 95);
+        }
+        engine.getMetrics().record(ReactorMetrics.PAINT, System.nanoTime() - start);
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
+    }
+
+    @Override
+    public void mouseDragged(MouseEvent e) {
+
+        // Pan the view; paintComponent keeps it inside the world
+        viewX -= e.getX() - dragX;
+        viewY -= e.getY() - dragY;
+        dragX = e.getX();
+        dragY = e.getY();
+    }
+
+    @Override
+    public void mouseMoved(MouseEvent e) {
+    }
+
+    @Override
+    public void mouseClicked(MouseEvent e) {
+    }
+
+    @Override
+    public void mouseEntered(MouseEvent e) {
+    }
+
+    @Override
+    public void mouseExited(MouseEvent e) {
+    }
+
+    @Override
+    public void mousePressed(MouseEvent e) {
+        dragX = e.getX();
+        dragY = e.getY();
+    }
+
+    @Override
+    public void mouseReleased(MouseEvent e) {
+    }
+
+    /* METHODS FOR CREATING JFRAME AND JPANEL */
+
+    
+
+}
@@ -0,0 +1,57 @@
+package reactor;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// The neutron kernels on SIMD lanes of the widest vector the CPU has. Only compares, blends,
+// adds and multiplies, which round exactly like the scalar code, so the results match it bit
+// for bit. The tail that does not fill a vector falls back to ScalarKernels.
+class VectorKernels implements NeutronKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void moveAndBounce(ParticleStore particles, int from, int to, double maxX, double maxY) {
+        double[] x = particles.x;
+        double[] y = particles.y;
+        double[] dx = particles.dx;
+        double[] dy = particles.dy;
+        int i = from;
+        for (int upper = from + SPECIES.loopBound(to - from); i < upper; i += SPECIES.length()) {
+            bounce(x, dx, i, maxX);
+            bounce(y, dy, i, maxY);
+        }
+        ScalarKernels.INSTANCE.moveAndBounce(particles, i, to, maxX, maxY);
+    }
+
+    // Moves one axis of a vector of particles and reflects it off 0..max
+    private static void bounce(double[] p, double[] v, int i, double max) {
+        DoubleVector velocity = DoubleVector.fromArray(SPECIES, v, i);
+        DoubleVector position = DoubleVector.fromArray(SPECIES, p, i).add(velocity);
+        VectorMask<Double> low = position.compare(VectorOperators.LT, 0);
+        VectorMask<Double> high = position.compare(VectorOperators.GT, max);
+        position.blend(0, low).blend(max, high).intoArray(p, i);
+        velocity.blend(velocity.neg(), low.or(high)).intoArray(v, i);
+    }
+
+    @Override
+    public int firstWithin(double[] xs, double[] ys, int from, int to, double x, double y, double radiusSquared) {
+        int k = from;
+        for (int upper = from + SPECIES.loopBound(to - from); k < upper; k += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, xs, k).sub(x);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, ys, k).sub(y);
+            VectorMask<Double> inside = dx.mul(dx).add(dy.mul(dy)).compare(VectorOperators.LT, radiusSquared);
+            if (inside.anyTrue()) {
+                return k + inside.firstTrue();
+            }
+        }
+        return ScalarKernels.INSTANCE.firstWithin(xs, ys, k, to, x, y, radiusSquared);
+    }
+
+    @Override
+    public String getName() {
+        return "vector " + SPECIES.length() + "x64";
+    }
+}
@@ -0,0 +1,131 @@
+package reactor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// A reactor saved part way through and loaded into a fresh engine must step exactly like the
+// one that was never stopped. Under a neutron budget, with moderators and in both degradation
+// modes, so the weights, spreads, blocks and pending transitions all go through the file.
+public class CheckpointTest {
+
+    private static final int BEFORE = 60; // Frames run before saving
+    private static final int AFTER = 90; // Frames run after loading
+
+    @TempDir
+    File directory;
+
+    private static ReactorEngine reactor(boolean eventDriven) {
+        ReactorConfig config = new ReactorConfig();
+        config.fuelCount = 2500;
+        config.uraniumChance = 0.9;
+        config.neutronBudget = 400;
+        ReactorEngine engine = new ReactorEngine(800, 600, 12, config);
+        List<Rectangle> blocks = new ArrayList<Rectangle>();
+        blocks.add(new Rectangle(300, 100, 40, 400));
+        blocks.add(new Rectangle(1000, 900, 300, 30));
+        engine.setModerators(blocks);
+        engine.setEventDrivenDegradation(eventDriven);
+        engine.addStrayNeutrons(200);
+        return engine;
+    }
+
+    private void assertResumesLikeAStraightRun(boolean eventDriven) throws IOException {
+        ReactorEngine straight = reactor(eventDriven);
+        straight.run(BEFORE + AFTER);
+
+        ReactorEngine saved = reactor(eventDriven);
+        saved.run(BEFORE);
+        File file = new File(directory, "reactor" + eventDriven + ".ckpt");
+        saved.saveCheckpoint(file);
+        ReactorEngine loaded = ReactorEngine.loadCheckpoint(file);
+        assertEquals(ReplayHarness.stateHash(saved), ReplayHarness.stateHash(loaded), "State as loaded");
+        loaded.run(AFTER);
+
+        String mode = eventDriven ? "event-driven" : "per-frame";
+        assertTrue(straight.getNeutrons().size() > 0, "The reactor died out before the checkpoint mattered");
+        assertTrue(saved.getNeutronPopulation() > saved.getNeutrons().size(), "No weighted neutrons were saved");
+        assertEquals(straight.getFrame(), loaded.getFrame(), mode);
+        assertEquals(ReplayHarness.stateHash(straight), ReplayHarness.stateHash(loaded), mode);
+        assertEquals(straight.getTemperature(), loaded.getTemperature(), mode);
+        assertEquals(straight.getEnergyOutput(), loaded.getEnergyOutput(), mode);
+        assertEquals(straight.getNeutronPopulation(), loaded.getNeutronPopulation(), mode);
+        assertEquals(straight.getLineage().getRecorded(), loaded.getLineage().getRecorded(), mode);
+        assertEquals(straight.getLineage().getMultiplicationFactor(), loaded.getLineage().getMultiplicationFactor(), mode);
+    }
+
+    @Test
+    public void loadedReactorStepsLikeOneNeverStopped() throws IOException {
+        assertResumesLikeAStraightRun(false);
+        assertResumesLikeAStraightRun(true);
+    }
+
+    // Three fuel particles, saved on their own
+    private File saveFuel(String name) throws IOException {
+        ParticleStore fuels = new ParticleStore(4, false);
+        fuels.add(10, 20, 0, 0, ParticleType.URANIUM, -1);
+        fuels.add(30, 40, 0, 0, ParticleType.DEPLETED, -1);
+        fuels.add(50, 60, 0, 0, ParticleType.GRAPHITE, -1);
+        File file = new File(directory, name);
+        try (Checkpoint out = Checkpoint.create(file)) {
+            fuels.write(out);
+        }
+        return file;
+    }
+
+    private static ParticleStore read(File file, boolean moving) throws IOException {
+        ParticleStore store = new ParticleStore(1, moving);
+        try (Checkpoint in = Checkpoint.open(file)) {
+            store.read(in);
+        }
+        return store;
+    }
+
+    @Test
+    public void particleStoreRoundTrips() throws IOException {
+        ParticleStore fuels = read(saveFuel("fuel"), false);
+        assertEquals(3, fuels.size());
+        assertEquals(50, fuels.x[2]);
+        assertEquals(ParticleType.DEPLETED, fuels.getType(1));
+        assertEquals(1, fuels.getCount(ParticleType.GRAPHITE));
+    }
+
+    @Test
+    public void corruptParticleTypeIsRejected() throws IOException {
+        File file = saveFuel("badType");
+        // Magic and version, then the count, ticks and moving flag, then x and y of three particles
+        long secondType = 4 + 4 + 4 + 4 + 1 + 2 * 3 * Double.BYTES + 1;
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(secondType);
+            raw.write(ParticleType.values().length);
+        }
+        IOException ex = assertThrows(IOException.class, () -> read(file, false));
+        assertTrue(ex.getMessage().contains("bad particle type"), ex.getMessage());
+    }
+
+    @Test
+    public void movingParticlesAreRejectedWhereStationaryOnesBelong() throws IOException {
+        File file = saveFuel("fuelAsNeutrons");
+        IOException ex = assertThrows(IOException.class, () -> read(file, true));
+        assertTrue(ex.getMessage().contains("stationary particles where moving ones belong"), ex.getMessage());
+
+        ParticleStore neutrons = new ParticleStore(2, true);
+        neutrons.add(1, 2, 3, 4, ParticleType.NEUTRON, -1);
+        File moving = new File(directory, "neutronsAsFuel");
+        try (Checkpoint out = Checkpoint.create(moving)) {
+            neutrons.write(out);
+        }
+        ex = assertThrows(IOException.class, () -> read(moving, false));
+        assertTrue(ex.getMessage().contains("moving particles where stationary ones belong"), ex.getMessage());
+    }
+}
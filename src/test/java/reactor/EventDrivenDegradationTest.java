@@ -0,0 +1,77 @@
+package reactor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+// Event-driven degradation draws a geometric wait per depleted fuel instead of rolling every
+// frame, so single runs differ from the per-frame mode but the fuel counts must agree on
+// average. Neutrons all decay at once here, so the fuel only changes by degrading: a depleted
+// site stays depleted for t frames with chance (1 - p)^t, and otherwise ends up as uranium or
+// graphite in proportion to their chances.
+public class EventDrivenDegradationTest {
+
+    private static final int RUNS = 20;
+    private static final int FRAMES = 100;
+    private static final int FUEL = 400;
+
+    private static ReactorConfig degradationOnly(double toUranium, double toGraphite) {
+        ReactorConfig config = new ReactorConfig();
+        config.fuelCount = FUEL;
+        config.neutronDecayProb = 1;
+        config.depletedToUraniumProb = toUranium;
+        config.depletedToGraphiteProb = toGraphite;
+        return config;
+    }
+
+    // Totals over the seeded runs: initial depleted, then final depleted, uranium and graphite
+    private static long[] ensemble(ReactorConfig config, boolean eventDriven) {
+        long[] totals = new long[4];
+        for (int seed = 0; seed < RUNS; seed++) {
+            ReactorEngine engine = new ReactorEngine(800, 600, seed, config);
+            engine.setEventDrivenDegradation(eventDriven);
+            totals[0] += engine.countFuel(ParticleType.DEPLETED);
+            engine.run(FRAMES);
+            totals[1] += engine.countFuel(ParticleType.DEPLETED);
+            totals[2] += engine.countFuel(ParticleType.URANIUM);
+            totals[3] += engine.countFuel(ParticleType.GRAPHITE);
+        }
+        return totals;
+    }
+
+    @Test
+    public void meanFuelCountsMatchPerFrameMode() {
+        ReactorConfig config = degradationOnly(0.01, 0.005);
+        double p = config.getDepletedTransitionProb();
+        double stay = Math.pow(1 - p, FRAMES);
+        double toUranium = (1 - stay) * config.depletedToUraniumProb / p;
+        double toGraphite = (1 - stay) * (1 - config.depletedToUraniumProb) * config.depletedToGraphiteProb / p;
+
+        long[] perFrame = ensemble(config, false);
+        long[] eventDriven = ensemble(config, true);
+        assertEquals(perFrame[0], eventDriven[0], "Both modes start from the same lattices");
+        long uranium = FUEL * RUNS - perFrame[0]; // Uranium that was never depleted
+        for (long[] totals : new long[][] { perFrame, eventDriven }) {
+            assertMean(totals[0] * stay, totals[0], stay, totals[1], "depleted");
+            assertMean(uranium + totals[0] * toUranium, totals[0], toUranium, totals[2], "uranium");
+            assertMean(totals[0] * toGraphite, totals[0], toGraphite, totals[3], "graphite");
+        }
+    }
+
+    // Within four standard deviations of the count of sites that each end up this way with chance
+    private static void assertMean(double expected, long sites, double chance, long actual, String type) {
+        double tolerance = 4 * Math.sqrt(sites * chance * (1 - chance));
+        assertEquals(expected / RUNS, actual / (double) RUNS, tolerance / RUNS, type);
+    }
+
+    @Test
+    public void depletedFuelThatCannotChangeStaysDepleted() {
+        ReactorConfig config = degradationOnly(0, 0);
+        long[] perFrame = ensemble(config, false);
+        long[] eventDriven = ensemble(config, true);
+        for (long[] totals : new long[][] { perFrame, eventDriven }) {
+            assertEquals(totals[0], totals[1]);
+            assertEquals(0, totals[3]);
+        }
+    }
+}
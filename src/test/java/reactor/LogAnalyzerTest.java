@@ -0,0 +1,226 @@
+package reactor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// LogAnalyzer against summaries worked out from every record at once. The windows are a few
+// hundred bytes, so records straddle window boundaries, and the buckets are few, so they are
+// merged many times, including with a last bucket that is only partly full.
+public class LogAnalyzerTest {
+
+    private static final int[] RECORD_COUNTS = { 0, 1, 7, 8, 9, 1001, 10001 };
+    private static final int BUCKETS = 8;
+    private static final long WINDOW = 331; // Bytes, shorter than a binary block
+
+    @TempDir
+    File directory;
+
+    // Writes a log of random records through LogManager
+    private File writeLog(String name, LogManager.Format format, int records, long seed) {
+        File file = new File(directory, name);
+        Random random = new Random(seed);
+        LogManager log = new LogManager(file, format);
+        for (int r = 0; r < records; r++) {
+            log.record(random.nextGaussian(), random.nextDouble() * 1000, random.nextDouble() * 1e6 - 1e3,
+                    random.nextInt(100000), random.nextInt(1000), random.nextInt(1000), -random.nextInt(1000));
+        }
+        log.close();
+        assertEquals(0, log.getDropped());
+        return file;
+    }
+
+    // Every record of a log, read the simple way
+    private static List<double[]> readAll(File file, LogManager.Format format) throws IOException {
+        List<double[]> rows = new ArrayList<double[]>();
+        if (format == LogManager.Format.CSV) {
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            for (String line : lines.subList(1, lines.size())) {
+                String[] fields = line.split(",");
+                double[] row = new double[fields.length];
+                for (int c = 0; c < fields.length; c++) {
+                    row[c] = Double.parseDouble(fields[c]);
+                }
+                rows.add(row);
+            }
+            return rows;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            in.skipBytes(12);
+            while (in.available() > 0) {
+                int count = in.readInt();
+                double[][] block = new double[count][LogManager.COLUMNS];
+                for (int c = 0; c < LogManager.COLUMNS; c++) {
+                    for (int r = 0; r < count; r++) {
+                        block[r][c] = c < 3 ? in.readDouble() : in.readInt();
+                    }
+                }
+                for (double[] row : block) {
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    // Reads a summary back as first, records, then min, max and mean of each column
+    private static List<double[]> readSummary(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        List<double[]> buckets = new ArrayList<double[]>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",");
+            double[] bucket = new double[fields.length];
+            for (int c = 0; c < fields.length; c++) {
+                bucket[c] = Double.parseDouble(fields[c]);
+            }
+            buckets.add(bucket);
+        }
+        return buckets;
+    }
+
+    private void assertSummarizes(LogManager.Format format, int records) throws IOException {
+        File log = writeLog("log" + records, format, records, records);
+        LogAnalyzer analyzer = new LogAnalyzer(log, BUCKETS, WINDOW);
+        assertEquals(records, analyzer.read());
+        File summary = new File(directory, "summary" + records + ".csv");
+        analyzer.writeSummary(summary);
+
+        // The buckets are the fewest records, doubling from 1, that fit in BUCKETS
+        List<double[]> rows = readAll(log, format);
+        assertEquals(records, rows.size());
+        long bucketRecords = 1;
+        while ((records + bucketRecords - 1) / bucketRecords > BUCKETS) {
+            bucketRecords *= 2;
+        }
+        assertEquals(bucketRecords, analyzer.getBucketRecords());
+
+        List<double[]> buckets = readSummary(summary);
+        assertEquals((records + bucketRecords - 1) / bucketRecords, buckets.size());
+        for (int b = 0; b < buckets.size(); b++) {
+            double[] bucket = buckets.get(b);
+            int first = (int) (b * bucketRecords);
+            int count = (int) Math.min(bucketRecords, records - first);
+            String where = format + " with " + records + " records, bucket " + b;
+            assertEquals(first, bucket[0], where);
+            assertEquals(count, bucket[1], where);
+            for (int c = 0; c < LogManager.COLUMNS; c++) {
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                double sum = 0;
+                for (double[] row : rows.subList(first, first + count)) {
+                    min = Math.min(min, row[c]);
+                    max = Math.max(max, row[c]);
+                    sum += row[c];
+                }
+                assertEquals(min, bucket[2 + 3 * c], where + ", min of " + LogAnalyzer.COLUMNS[c]);
+                assertEquals(max, bucket[3 + 3 * c], where + ", max of " + LogAnalyzer.COLUMNS[c]);
+                assertEquals(sum / count, bucket[4 + 3 * c], 1e-9 * Math.max(1, Math.abs(sum / count)), where + ", mean of " + LogAnalyzer.COLUMNS[c]);
+            }
+        }
+    }
+
+    @Test
+    public void csvSummaryMatchesEveryRecord() throws IOException {
+        for (int records : RECORD_COUNTS) {
+            assertSummarizes(LogManager.Format.CSV, records);
+        }
+    }
+
+    @Test
+    public void binarySummaryMatchesEveryRecord() throws IOException {
+        for (int records : RECORD_COUNTS) {
+            assertSummarizes(LogManager.Format.BINARY, records);
+        }
+    }
+
+    // Copies a log over in random pieces, reading after each, as if a run were still writing it.
+    // The summary must come out the same as reading the whole log at once.
+    private void assertTailingMatches(LogManager.Format format, long seed) throws IOException {
+        File log = writeLog("whole" + format, format, 5001, seed);
+        LogAnalyzer whole = new LogAnalyzer(log, BUCKETS, WINDOW);
+        whole.read();
+        File wholeSummary = new File(directory, "whole" + format + ".csv");
+        whole.writeSummary(wholeSummary);
+
+        byte[] bytes = Files.readAllBytes(log.toPath());
+        File growing = new File(directory, "growing" + format);
+        Files.write(growing.toPath(), new byte[0]);
+        LogAnalyzer tail = new LogAnalyzer(growing, BUCKETS, WINDOW);
+        Random random = new Random(seed);
+        try (FileOutputStream out = new FileOutputStream(growing, true)) {
+            for (int p = 0; p < bytes.length; ) {
+                int piece = Math.min(bytes.length - p, 1 + random.nextInt(random.nextBoolean() ? 16 : 2000));
+                out.write(bytes, p, piece);
+                out.flush();
+                p += piece;
+                tail.read();
+            }
+        }
+        File tailSummary = new File(directory, "tail" + format + ".csv");
+        tail.writeSummary(tailSummary);
+
+        assertEquals(whole.getRecords(), tail.getRecords());
+        assertArrayEquals(Files.readAllBytes(wholeSummary.toPath()), Files.readAllBytes(tailSummary.toPath()));
+    }
+
+    @Test
+    public void tailingCsvInRandomPiecesMatchesOneRead() throws IOException {
+        assertTailingMatches(LogManager.Format.CSV, 21);
+    }
+
+    @Test
+    public void tailingBinaryInRandomPiecesMatchesOneRead() throws IOException {
+        assertTailingMatches(LogManager.Format.BINARY, 22);
+    }
+
+    // Values %.3f would spell out in hundreds of digits, written a full ring at a time. They
+    // come back as NaN, Inf and scientific notation, to three significant decimals.
+    @Test
+    public void extremeValuesKeepTheirRecordsShort() throws IOException {
+        double[] values = { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, 1e300, 9.9996e20, 1e15, -123.4567 };
+        int records = 10001;
+        File file = new File(directory, "extreme");
+        LogManager log = new LogManager(file, LogManager.Format.CSV);
+        for (int r = 0; r < records; r++) {
+            log.record(values[r % values.length], values[(r + 1) % values.length], values[(r + 2) % values.length],
+                    Integer.MIN_VALUE, Integer.MAX_VALUE, r, -r);
+        }
+        log.close();
+        assertEquals(0, log.getDropped());
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(records + 1, lines.size());
+        assertEquals("NaN,Inf,-Inf,-2147483648,2147483647,0,0", lines.get(1));
+        assertEquals("-1.798e308,1.000e300,1.000e21,-2147483648,2147483647,3,-3", lines.get(4));
+        assertEquals("1.000e15,-123.457,NaN,-2147483648,2147483647,6,-6", lines.get(7));
+
+        LogAnalyzer analyzer = new LogAnalyzer(file, BUCKETS, WINDOW);
+        assertEquals(records, analyzer.read());
+    }
+
+    // A log that is started over by a new run is summarized from the top again
+    @Test
+    public void shrunkenLogIsReadAgain() throws IOException {
+        File log = writeLog("restarted", LogManager.Format.CSV, 1001, 3);
+        LogAnalyzer analyzer = new LogAnalyzer(log, BUCKETS, WINDOW);
+        assertEquals(1001, analyzer.read());
+        writeLog("restarted", LogManager.Format.CSV, 9, 4);
+        assertEquals(9, analyzer.read());
+        assertEquals(9, analyzer.getRecords());
+        assertEquals(2, analyzer.getBucketRecords());
+    }
+}
@@ -0,0 +1,99 @@
+package reactor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// ModeratorTree against a scan over every block. Blocks may overlap, so when several touch the
+// circle the tree may return any of them, but it must find one exactly when the scan does.
+public class ModeratorTreeTest {
+
+    private static final int WORLD = 1300;
+
+    // The distance from a circle's center to a block is within the radius
+    private static boolean touches(Rectangle block, double x, double y, double radius) {
+        double dx = x - Math.max(block.x, Math.min(x, block.x + block.width));
+        double dy = y - Math.max(block.y, Math.min(y, block.y + block.height));
+        return dx * dx + dy * dy <= radius * radius;
+    }
+
+    private static int scan(List<Rectangle> blocks, double x, double y, double radius) {
+        for (int b = 0; b < blocks.size(); b++) {
+            if (touches(blocks.get(b), x, y, radius)) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    private static void assertAgreesWithScan(List<Rectangle> blocks, Random random, int queries) {
+        ModeratorTree tree = new ModeratorTree(blocks);
+        int hits = 0;
+        for (int q = 0; q < queries; q++) {
+            double x = random.nextDouble() * WORLD;
+            double y = random.nextDouble() * WORLD;
+            double radius = random.nextDouble() * 20;
+            int expected = scan(blocks, x, y, radius);
+            int hit = tree.findHit(x, y, radius);
+            if (expected == -1) {
+                assertEquals(-1, hit, "Nothing touches (" + x + ", " + y + ") within " + radius);
+            } else {
+                assertNotEquals(-1, hit, "Missed block " + expected + " at (" + x + ", " + y + ") within " + radius);
+                assertTrue(touches(blocks.get(hit), x, y, radius), "Block " + hit + " does not touch (" + x + ", " + y + ")");
+                assertEquals(hit, tree.findHit(x, y, radius), "The same query must return the same block");
+                hits++;
+            }
+        }
+        assertTrue(hits > queries / 20, "Too few queries hit a block to test anything: " + hits);
+    }
+
+    @Test
+    public void findHitAgreesWithScan() {
+        Random random = new Random(16);
+        List<Rectangle> blocks = new ArrayList<Rectangle>();
+        for (int b = 0; b < 500; b++) {
+            blocks.add(new Rectangle(random.nextInt(WORLD), random.nextInt(WORLD), 1 + random.nextInt(40), 1 + random.nextInt(40)));
+        }
+        assertAgreesWithScan(blocks, random, 20000);
+    }
+
+    // Long thin blocks make the longer side alternate, and rows of identical centers tie in
+    // the median sort
+    @Test
+    public void findHitAgreesWithScanOnRodsAndTies() {
+        Random random = new Random(160);
+        List<Rectangle> blocks = new ArrayList<Rectangle>();
+        for (int b = 0; b < 30; b++) {
+            blocks.add(new Rectangle(random.nextInt(WORLD), random.nextInt(WORLD), 2, 60 + random.nextInt(120)));
+            blocks.add(new Rectangle(random.nextInt(WORLD), random.nextInt(WORLD), 60 + random.nextInt(120), 2));
+        }
+        for (int b = 0; b < 100; b++) {
+            blocks.add(new Rectangle(WORLD / 2 - b, WORLD / 2 - b, 2 * b + 1, 2 * b + 1));
+        }
+        assertAgreesWithScan(blocks, random, 5000);
+    }
+
+    @Test
+    public void touchingAtTheRadiusIsAHit() {
+        List<Rectangle> blocks = new ArrayList<Rectangle>();
+        blocks.add(new Rectangle(100, 100, 50, 50));
+        ModeratorTree tree = new ModeratorTree(blocks);
+        assertEquals(0, tree.findHit(90, 125, 10));
+        assertEquals(-1, tree.findHit(89.9, 125, 10));
+        assertEquals(0, tree.findHit(125, 125, 0));
+    }
+
+    @Test
+    public void emptyTreeHitsNothing() {
+        ModeratorTree tree = new ModeratorTree(new ArrayList<Rectangle>());
+        assertEquals(0, tree.size());
+        assertEquals(-1, tree.findHit(0, 0, 1000));
+    }
+}
@@ -0,0 +1,60 @@
+package reactor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// The parallel neutron phase against the sequential one. Tasks of 32 neutrons make even a small
+// reactor fork, and the two must stay identical frame by frame, with and without a neutron
+// budget merging and splitting what the tasks produced.
+public class ParallelStepTest {
+
+    private static final int FRAMES = 150;
+    private static final int THRESHOLD = 32;
+
+    private static ReactorEngine reactor(boolean parallel, int budget) {
+        ReactorConfig config = new ReactorConfig();
+        config.fuelCount = 2500;
+        config.uraniumChance = 0.9;
+        config.neutronBudget = budget;
+        ReactorEngine engine = new ReactorEngine(800, 600, 4, config);
+        List<Rectangle> blocks = new ArrayList<Rectangle>();
+        blocks.add(new Rectangle(400, 200, 60, 300));
+        engine.setModerators(blocks);
+        engine.setParallel(parallel);
+        engine.setParallelThreshold(THRESHOLD);
+        engine.addStrayNeutrons(200);
+        return engine;
+    }
+
+    private static void assertSameRun(int budget) {
+        ReactorEngine sequential = reactor(false, budget);
+        ReactorEngine parallel = reactor(true, budget);
+        for (int f = 0; f < FRAMES; f++) {
+            sequential.step();
+            parallel.step();
+            String where = "Frame " + f + " with a budget of " + budget;
+            assertEquals(ReplayHarness.stateHash(sequential), ReplayHarness.stateHash(parallel), where);
+            assertEquals(sequential.getTemperature(), parallel.getTemperature(), where);
+            assertEquals(sequential.getEnergyOutput(), parallel.getEnergyOutput(), where);
+        }
+        assertTrue(parallel.getParallelFrames() > FRAMES / 2, "Too few frames forked: " + parallel.getParallelFrames());
+        assertEquals(0, sequential.getParallelFrames());
+        assertEquals(sequential.getLineage().getRecorded(), parallel.getLineage().getRecorded());
+    }
+
+    @Test
+    public void parallelRunMatchesSequentialRun() {
+        assertSameRun(0);
+    }
+
+    @Test
+    public void parallelRunMatchesSequentialRunUnderABudget() {
+        assertSameRun(400);
+    }
+}
@@ -0,0 +1,82 @@
+package reactor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+// Weighted neutrons against the lone neutrons they stand for. A weighted neutron must react
+// as often as its weight says, and a run squeezed into a neutron budget must give off the
+// same energy as one that simulates every neutron.
+public class WeightedNeutronTest {
+
+    private static final int RUNS = 12;
+    private static final int FRAMES = 150;
+
+    // Fuel packed closer than its radius, so every neutron is over uranium wherever it is
+    private static ReactorEngine packedUranium(long seed, double weight) {
+        ReactorConfig config = new ReactorConfig();
+        config.fuelCount = 10000;
+        config.spacing = 10;
+        config.uraniumChance = 1;
+        config.neutronDecayProb = 0;
+        config.depletedToUraniumProb = 0;
+        config.depletedToGraphiteProb = 0;
+        ReactorEngine engine = new ReactorEngine(800, 600, seed, config);
+        engine.addStrayNeutrons(1);
+        engine.getNeutrons().x[0] = engine.getWidth() / 2.0;
+        engine.getNeutrons().y[0] = engine.getHeight() / 2.0;
+        engine.setNeutronWeight(0, weight);
+        return engine;
+    }
+
+    // Every neutron of a weighted one reacts once, all of them in the first frame up to the
+    // places there are. After that the ones left over are still carried, however long they
+    // take to find fuel the chain has not used up.
+    @Test
+    public void weightedNeutronReactsAsOftenAsItsWeight() {
+        for (double weight : new double[] { 1, 2, 7, 32, 50 }) {
+            for (long seed = 0; seed < 4; seed++) {
+                ReactorEngine engine = packedUranium(seed, weight);
+                engine.run(1);
+                assertEquals(Math.min(weight, 32), engine.getLineage().getFissions(0), "First frame of weight " + weight);
+                for (int frame = 0; frame < 10; frame++) {
+                    engine.step();
+                    ParticleStore neutrons = engine.getNeutrons();
+                    double carried = 0;
+                    for (int i = 0; i < neutrons.size(); i++) {
+                        if (neutrons.generation[i] == 0) carried += neutrons.weight[i];
+                    }
+                    assertEquals(weight, engine.getLineage().getFissions(0) + carried, "Weight " + weight);
+                }
+            }
+        }
+    }
+
+    // Mean energy and its standard error over the seeded runs
+    private static double[] meanEnergy(int budget) {
+        double sum = 0;
+        double sumSquares = 0;
+        for (int seed = 0; seed < RUNS; seed++) {
+            ReactorConfig config = new ReactorConfig();
+            config.fuelCount = 2500;
+            config.uraniumChance = 0.9;
+            config.neutronBudget = budget;
+            ReactorEngine engine = new ReactorEngine(800, 600, seed, config);
+            engine.addStrayNeutrons(200);
+            engine.run(FRAMES);
+            sum += engine.getEnergyOutput();
+            sumSquares += engine.getEnergyOutput() * engine.getEnergyOutput();
+        }
+        double mean = sum / RUNS;
+        return new double[] { mean, Math.sqrt((sumSquares / RUNS - mean * mean) / (RUNS - 1)) };
+    }
+
+    // The run grows to about 4200 neutrons, so a budget of 1200 simulates a third of them
+    @Test
+    public void budgetedRunGivesOffTheEnergyOfAFullOne() {
+        double[] full = meanEnergy(0);
+        double[] budgeted = meanEnergy(1200);
+        double error = Math.hypot(full[1], budgeted[1]);
+        assertEquals(full[0], budgeted[0], 4 * error, "Energy with every neutron simulated against a third of them");
+    }
+}